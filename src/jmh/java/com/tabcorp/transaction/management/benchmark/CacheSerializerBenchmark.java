@@ -0,0 +1,120 @@
+package com.tabcorp.transaction.management.benchmark;
+
+import com.tabcorp.transaction.management.cache.CompactRedisSerializer;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.entity.Product;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and deserializes cached values with the JSON serializer the caches used before and
+ * with the compact binary one: a single product, and a customer summary list of the given size.
+ * The encoded sizes are reported as auxiliary counters of the compact serialize benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheSerializerBenchmark {
+
+    @Param({"100", "10000"})
+    private int customers;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private CompactRedisSerializer compact;
+    private Product product;
+    private List<CustomerTransactionSummaryDTO> summaries;
+    private byte[] jsonProduct;
+    private byte[] compactProduct;
+    private byte[] jsonSummaries;
+    private byte[] compactSummaries;
+
+    @Setup
+    public void setUp() {
+        json = new GenericJackson2JsonRedisSerializer();
+        compact = new CompactRedisSerializer(json);
+        product = new Product("PRODUCT_001", new BigDecimal("25.50"), "ACTIVE");
+        summaries = new ArrayList<>(customers);
+        for (int i = 0; i < customers; i++) {
+            summaries.add(new CustomerTransactionSummaryDTO(i, "First" + i, "Last" + i, 1_000_000L + i * 1_237L));
+        }
+
+        jsonProduct = json.serialize(product);
+        compactProduct = compact.serialize(product);
+        jsonSummaries = json.serialize(summaries);
+        compactSummaries = compact.serialize(summaries);
+    }
+
+    @Benchmark
+    public byte[] serializeProductJson() {
+        return json.serialize(product);
+    }
+
+    @Benchmark
+    public byte[] serializeProductCompact(EncodedSize size) {
+        return compact.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserializeProductJson() {
+        return json.deserialize(jsonProduct);
+    }
+
+    @Benchmark
+    public Object deserializeProductCompact() {
+        return compact.deserialize(compactProduct);
+    }
+
+    @Benchmark
+    public byte[] serializeSummariesJson() {
+        return json.serialize(summaries);
+    }
+
+    @Benchmark
+    public byte[] serializeSummariesCompact(EncodedSize size) {
+        return compact.serialize(summaries);
+    }
+
+    @Benchmark
+    public Object deserializeSummariesJson() {
+        return json.deserialize(jsonSummaries);
+    }
+
+    @Benchmark
+    public Object deserializeSummariesCompact() {
+        return compact.deserialize(compactSummaries);
+    }
+
+    /**
+     * Encoded bytes of the product and the summary list in both formats, set once per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long productJsonBytes;
+        public long productCompactBytes;
+        public long summariesJsonBytes;
+        public long summariesCompactBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(CacheSerializerBenchmark benchmark) {
+            productJsonBytes = benchmark.jsonProduct.length;
+            productCompactBytes = benchmark.compactProduct.length;
+            summariesJsonBytes = benchmark.jsonSummaries.length;
+            summariesCompactBytes = benchmark.compactSummaries.length;
+        }
+    }
+}
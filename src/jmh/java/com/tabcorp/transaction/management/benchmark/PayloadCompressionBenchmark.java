@@ -0,0 +1,143 @@
+package com.tabcorp.transaction.management.benchmark;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.tabcorp.transaction.management.payload.PayloadCompressor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of zstd over transaction payloads, with and without a dictionary
+ * trained on payloads of the same shape. The compression ratio of each variant over the whole
+ * sample is reported as an auxiliary counter of the compress benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PayloadCompressionBenchmark {
+
+    private static final int PAYLOADS = 4096;
+    private static final String[] PAYMENT_METHODS = {"credit_card", "paypal", "apple_pay", "google_pay", "debit_card"};
+    private static final String[] CARD_TYPES = {"VISA", "MASTERCARD", "AMEX", "VISA_DEBIT"};
+    private static final String[] CHANNELS = {"mobile", "web", "tablet"};
+    private static final String[] PROMOCODES = {"", "SUMMER25", "WELCOME10", "FLASH20"};
+
+    @Param({"3"})
+    private int level;
+
+    @Param({"16384"})
+    private int dictionarySize;
+
+    private byte[][] payloads;
+    private byte[][] plainCompressed;
+    private byte[][] dictionaryCompressed;
+    private ZstdDictCompress dictionaryCompressor;
+    private ZstdDictDecompress dictionaryDecompressor;
+    private double plainRatio;
+    private double dictionaryRatio;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<byte[]> samples = new ArrayList<>(PAYLOADS);
+        for (int i = 0; i < PAYLOADS; i++) {
+            samples.add(payload(i));
+        }
+        byte[] dictionary = PayloadCompressor.train(samples, dictionarySize);
+        dictionaryCompressor = new ZstdDictCompress(dictionary, level);
+        dictionaryDecompressor = new ZstdDictDecompress(dictionary);
+
+        payloads = samples.toArray(new byte[0][]);
+        plainCompressed = new byte[PAYLOADS][];
+        dictionaryCompressed = new byte[PAYLOADS][];
+        long raw = 0;
+        long plain = 0;
+        long withDictionary = 0;
+        for (int i = 0; i < PAYLOADS; i++) {
+            plainCompressed[i] = Zstd.compress(payloads[i], level);
+            dictionaryCompressed[i] = Zstd.compress(payloads[i], dictionaryCompressor);
+            raw += payloads[i].length;
+            plain += plainCompressed[i].length;
+            withDictionary += dictionaryCompressed[i].length;
+        }
+        plainRatio = (double) raw / plain;
+        dictionaryRatio = (double) raw / withDictionary;
+    }
+
+    @Benchmark
+    public byte[] compressPlain(CompressionRatio ratio) {
+        return Zstd.compress(payloads[nextIndex()], level);
+    }
+
+    @Benchmark
+    public byte[] compressWithDictionary(CompressionRatio ratio) {
+        return Zstd.compress(payloads[nextIndex()], dictionaryCompressor);
+    }
+
+    @Benchmark
+    public byte[] decompressPlain() {
+        int i = nextIndex();
+        return Zstd.decompress(plainCompressed[i], payloads[i].length);
+    }
+
+    @Benchmark
+    public byte[] decompressWithDictionary() {
+        int i = nextIndex();
+        return Zstd.decompress(dictionaryCompressed[i], dictionaryDecompressor, payloads[i].length);
+    }
+
+    /**
+     * Raw bytes per compressed byte over the whole sample, set once per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CompressionRatio {
+        public double plainRatio;
+        public double dictionaryRatio;
+
+        @Setup(Level.Iteration)
+        public void setUp(PayloadCompressionBenchmark benchmark) {
+            plainRatio = benchmark.plainRatio;
+            dictionaryRatio = benchmark.dictionaryRatio;
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (PAYLOADS - 1);
+        return next;
+    }
+
+    // Same shape as the seeded payloads: a fixed set of keys with a few low-cardinality values
+    private static byte[] payload(int i) {
+        StringBuilder json = new StringBuilder(200)
+                .append("{\"payment_method\":\"").append(PAYMENT_METHODS[i % PAYMENT_METHODS.length]).append('"');
+        if (i % 3 == 0) {
+            json.append(",\"card_type\":\"").append(CARD_TYPES[i % CARD_TYPES.length]).append('"');
+        }
+        json.append(",\"transaction_reference\":\"TX-").append(100000 + i).append("-2025\"")
+                .append(",\"currency\":\"AUD\"")
+                .append(",\"promocode\":\"").append(PROMOCODES[i % PROMOCODES.length]).append('"')
+                .append(",\"channel\":\"").append(CHANNELS[i % CHANNELS.length]).append('"');
+        if (i % 2 == 0) {
+            json.append(",\"device_id\":\"DEVICE-").append(i * 31 % 10000).append('"');
+        }
+        if (i % 4 == 1) {
+            json.append(",\"loyalty_points\":").append(i * 7 % 1000);
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.tabcorp.transaction.management.benchmark;
+
+import com.tabcorp.transaction.management.config.TransactionJsonDeserializer;
+import com.tabcorp.transaction.management.entity.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming JSON deserializer with the generic spring-kafka JsonDeserializer
+ * it replaced on the JSON topic. Run with the gc profiler to compare allocation per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionDeserializerBenchmark {
+
+    private static final String TOPIC = "json-transactions";
+
+    private byte[] record;
+    private JsonDeserializer<Transaction> genericDeserializer;
+    private TransactionJsonDeserializer streamingDeserializer;
+
+    @Setup
+    public void setUp() {
+        record = ("{\"customerId\":10001,\"productCode\":\"PRODUCT_001\",\"quantity\":3,"
+                + "\"transactionTime\":\"2025-03-15T09:00:00\",\"dataFormat\":\"JSON\","
+                + "\"jsonData\":\"{\\\"payment_method\\\":\\\"credit_card\\\",\\\"card_type\\\":\\\"VISA\\\","
+                + "\\\"transaction_reference\\\":\\\"TX-001-2025\\\",\\\"currency\\\":\\\"AUD\\\","
+                + "\\\"promocode\\\":\\\"SUMMER25\\\",\\\"channel\\\":\\\"mobile\\\"}\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        genericDeserializer = new JsonDeserializer<>(Transaction.class);
+        genericDeserializer.setRemoveTypeHeaders(false);
+        genericDeserializer.addTrustedPackages("com.tabcorp.transaction.management.entity");
+        streamingDeserializer = new TransactionJsonDeserializer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        genericDeserializer.close();
+        streamingDeserializer.close();
+    }
+
+    @Benchmark
+    public Transaction springKafkaJsonDeserializer() {
+        return genericDeserializer.deserialize(TOPIC, record);
+    }
+
+    @Benchmark
+    public Transaction streamingJsonDeserializer() {
+        return streamingDeserializer.deserialize(TOPIC, record);
+    }
+}
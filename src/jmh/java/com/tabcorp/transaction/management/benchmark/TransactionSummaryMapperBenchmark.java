@@ -0,0 +1,69 @@
+package com.tabcorp.transaction.management.benchmark;
+
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryRecord;
+import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a customer summary result set to DTOs and reads each total as serialization would.
+ * The double baseline repeats the Double.toString round trip the mapper used before totals
+ * were carried as cents. Run with the gc profiler to compare allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionSummaryMapperBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private TransactionSummaryMapper mapper;
+    private List<CustomerTransactionSummaryRecord> records;
+    private double[] doubleTotals;
+
+    @Setup
+    public void setUp() {
+        mapper = Mappers.getMapper(TransactionSummaryMapper.class);
+        records = new ArrayList<>(rows);
+        doubleTotals = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            long cents = 1_000_000_000L + i * 1_237L;
+            records.add(new CustomerTransactionSummaryRecord((long) i, "First" + i, "Last" + i, cents));
+            doubleTotals[i] = cents / 100.0;
+        }
+    }
+
+    @Benchmark
+    public void centsMapping(Blackhole blackhole) {
+        for (CustomerTransactionSummaryRecord record : records) {
+            CustomerTransactionSummaryDTO dto = mapper.customerTransactionRecordToDto(record);
+            blackhole.consume(dto.getTotalCost());
+        }
+    }
+
+    @Benchmark
+    public void doubleToStringBaseline(Blackhole blackhole) {
+        for (double total : doubleTotals) {
+            BigDecimal amount = new BigDecimal(Double.toString(total));
+            if (amount.scale() < 2) {
+                amount = amount.setScale(2);
+            }
+            blackhole.consume(amount);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.tabcorp.transaction.management.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache evictions to every instance over Redis pub/sub, so each one can drop the
+ * entries it holds in memory.
+ *
+ * Messages carry the id of the instance that sent them, and an instance ignores its own. Delivery
+ * is best effort: while Redis is unreachable, in-memory entries are only refreshed when they expire.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final String SEPARATOR = "|";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final ReactiveRedisConnectionFactory connectionFactory;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    private ReactiveRedisMessageListenerContainer container;
+    private Disposable subscription;
+
+    public CacheInvalidationBus(@Qualifier("reactiveRedisConnectionFactory") ReactiveRedisConnectionFactory connectionFactory,
+                                @Value("${transaction.cache.invalidation-channel:cache-invalidation}") String channel) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        container = new ReactiveRedisMessageListenerContainer(connectionFactory);
+        subscription = container.receive(ChannelTopic.of(channel))
+            .doOnError(error -> log.warn("Cache invalidation subscription failed, resubscribing: {}", error.getMessage()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+            .subscribe(message -> dispatch(message.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * Register a listener for evictions made by other instances
+     * @param listener Called with each invalidation, on a Redis I/O thread
+     */
+    public void addListener(Consumer<Invalidation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Tell the other instances to drop one entry
+     * @param cacheName Cache holding the entry
+     * @param key Key of the entry, in its string form
+     */
+    public void publishEvict(String cacheName, String key) {
+        publish(String.join(SEPARATOR, instanceId, EVICT, cacheName, key));
+    }
+
+    /**
+     * Tell the other instances to drop every entry of a cache
+     * @param cacheName Cache to clear
+     */
+    public void publishClear(String cacheName) {
+        publish(String.join(SEPARATOR, instanceId, CLEAR, cacheName, ""));
+    }
+
+    private void publish(String message) {
+        redisTemplate.convertAndSend(channel, message)
+            .subscribe(null, error -> log.warn("Failed to publish cache invalidation: {}", error.getMessage()));
+    }
+
+    private void dispatch(String message) {
+        // origin|kind|cache|key; the key is last, so it may itself contain the separator
+        String[] parts = message.split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) {
+            return;
+        }
+        Invalidation invalidation = new Invalidation(parts[2], CLEAR.equals(parts[1]) ? null : parts[3]);
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    /**
+     * An eviction made by another instance
+     * @param cacheName Cache holding the entries
+     * @param key Key of the evicted entry, or null if the whole cache was cleared
+     */
+    public record Invalidation(String cacheName, String key) {
+    }
+}
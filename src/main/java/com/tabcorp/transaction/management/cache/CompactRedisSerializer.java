@@ -0,0 +1,278 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.entity.Product;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary {@link RedisSerializer} for the values the caches hold: products, customer and product
+ * summaries, lists of them, and the customer existence flag.
+ *
+ * A value starts with a format version byte and a type tag, followed by the fields in a fixed
+ * order, so no field names or class names are stored. Strings are length-prefixed UTF-8 and whole
+ * numbers are variable-length. Values of any other type are written by the fallback JSON
+ * serializer. JSON never starts with a control byte, so entries written as JSON before the switch
+ * are still read, and an unknown version is reported instead of being misread.
+ *
+ * To change a layout, add a new version and keep reading the previous one until its entries expire.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte VERSION = 1;
+
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte PRODUCT = 3;
+    private static final byte CUSTOMER_SUMMARY = 4;
+    private static final byte PRODUCT_SUMMARY = 5;
+    private static final byte LIST = 6;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final RedisSerializer<Object> fallback;
+
+    public CompactRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Pick the value serializer for a configured format
+     * @param format "compact" or "json"
+     * @param json JSON serializer, used as is or as the compact serializer's fallback
+     * @return The value serializer
+     */
+    public static RedisSerializer<Object> forFormat(String format, RedisSerializer<Object> json) {
+        return switch (format.trim().toLowerCase()) {
+            case "compact" -> new CompactRedisSerializer(json);
+            case "json" -> json;
+            default -> throw new IllegalArgumentException("Unknown cache serializer: " + format);
+        };
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return EMPTY;
+        }
+        if (!isSupported(value)) {
+            return fallback.serialize(value);
+        }
+        Output out = new Output();
+        out.writeByte(VERSION);
+        write(out, value);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != VERSION) {
+            if (bytes[0] >= 0 && bytes[0] < ' ') {
+                throw new SerializationException("Unsupported compact cache value version " + bytes[0]);
+            }
+            return fallback.deserialize(bytes);
+        }
+        try {
+            Input in = new Input(bytes);
+            in.readByte();
+            return read(in);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Malformed compact cache value", e);
+        }
+    }
+
+    private static boolean isSupported(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().allMatch(element -> element != null && !(element instanceof List) && isSupported(element));
+        }
+        return value instanceof Boolean
+            || value instanceof Product
+            || value instanceof CustomerTransactionSummaryDTO
+            || value instanceof ProductTransactionSummaryDTO;
+    }
+
+    private static void write(Output out, Object value) {
+        if (value instanceof Boolean flag) {
+            out.writeByte(flag ? TRUE : FALSE);
+        } else if (value instanceof Product product) {
+            out.writeByte(PRODUCT);
+            out.writeString(product.getProductCode());
+            out.writeDecimal(product.getCost());
+            out.writeString(product.getStatus());
+        } else if (value instanceof CustomerTransactionSummaryDTO summary) {
+            out.writeByte(CUSTOMER_SUMMARY);
+            out.writeLong(summary.getCustomerId() == null ? null : summary.getCustomerId().longValue());
+            out.writeString(summary.getFirstName());
+            out.writeString(summary.getLastName());
+            out.writeLong(summary.getTotalCostCents());
+        } else if (value instanceof ProductTransactionSummaryDTO summary) {
+            out.writeByte(PRODUCT_SUMMARY);
+            out.writeString(summary.getProductCode());
+            out.writeString(summary.getStatus());
+            out.writeLong(summary.getTotalCostCents());
+        } else {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeVarint(list.size());
+            list.forEach(element -> write(out, element));
+        }
+    }
+
+    private static Object read(Input in) {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case PRODUCT:
+                return new Product(in.readString(), in.readDecimal(), in.readString());
+            case CUSTOMER_SUMMARY:
+                Long customerId = in.readLong();
+                return new CustomerTransactionSummaryDTO(customerId == null ? null : customerId.intValue(),
+                    in.readString(), in.readString(), in.readLong());
+            case PRODUCT_SUMMARY:
+                return new ProductTransactionSummaryDTO(in.readString(), in.readString(), in.readLong());
+            case LIST:
+                int size = Math.toIntExact(in.readVarint());
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            default:
+                throw new IllegalArgumentException("Unknown type tag " + tag);
+        }
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        // Presence byte, then the zig-zag encoded value, so small negative numbers stay short too
+        void writeLong(Long value) {
+            writeByte(value == null ? 0 : 1);
+            if (value != null) {
+                writeVarint((value << 1) ^ (value >> 63));
+            }
+        }
+
+        // Length plus one, so 0 stands for null
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeVarint(unscaled.length + 1L);
+            writeBytes(unscaled);
+            writeLong((long) value.scale());
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        Long readLong() {
+            if (readByte() == 0) {
+                return null;
+            }
+            long encoded = readVarint();
+            return (encoded >>> 1) ^ -(encoded & 1);
+        }
+
+        String readString() {
+            int length = Math.toIntExact(readVarint()) - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int length = Math.toIntExact(readVarint()) - 1;
+            if (length < 0) {
+                return null;
+            }
+            BigInteger unscaled = new BigInteger(buffer, position, length);
+            position += length;
+            return new BigDecimal(unscaled, Math.toIntExact(readLong()));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tabcorp.transaction.management.cache;
+
+/**
+ * Open-addressing hash set of primitive ints.
+ *
+ * Values are stored in a single int array with linear probing, so a lookup boxes nothing and
+ * touches one or two cache lines. The set is filled once and then only read; it is safe to
+ * share between threads once it has been safely published.
+ */
+public final class IntHashSet {
+
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+    // 0 marks a free slot, so its presence is tracked separately
+    private boolean containsZero;
+
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public boolean add(int value) {
+        if (value == FREE) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(value);
+        while (slots[index] != FREE) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        if (++size > slots.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == FREE) {
+            return containsZero;
+        }
+        int index = indexOf(value);
+        int slot;
+        while ((slot = slots[index]) != FREE) {
+            if (slot == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(int value) {
+        // Spread the bits so sequential ids do not cluster in neighbouring slots
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash() {
+        int[] previous = slots;
+        slots = new int[previous.length << 1];
+        mask = slots.length - 1;
+        for (int value : previous) {
+            if (value != FREE) {
+                int index = indexOf(value);
+                while (slots[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IntHashSet[size=" + size + ", capacity=" + slots.length + "]";
+    }
+}
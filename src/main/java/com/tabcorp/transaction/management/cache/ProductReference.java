@@ -0,0 +1,30 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.tabcorp.transaction.management.dto.Money;
+import com.tabcorp.transaction.management.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Validation view of a product: unit cost in cents and whether the product is active,
+ * both worked out once when the product is loaded rather than on every transaction.
+ * @param productCode Product code
+ * @param costCents Unit cost in cents
+ * @param active Whether the product status is ACTIVE
+ */
+public record ProductReference(
+    String productCode,
+    long costCents,
+    boolean active
+) {
+    public static ProductReference of(Product product) {
+        return new ProductReference(product.getProductCode(), Money.toCents(product.getCost()), "ACTIVE".equals(product.getStatus()));
+    }
+
+    /**
+     * Total cost of the given quantity, as a decimal amount
+     */
+    public BigDecimal totalCost(int quantity) {
+        return Money.toAmount(costCents).multiply(BigDecimal.valueOf(quantity));
+    }
+}
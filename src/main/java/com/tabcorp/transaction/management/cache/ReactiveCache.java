@@ -0,0 +1,383 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Non-blocking read-through cache over {@link ReactiveRedisTemplate}, with an in-memory L1.
+ *
+ * Every Redis operation is asynchronous, so no caller thread ever waits on the network. Concurrent
+ * misses on the same key share a single load (single flight). Bulk lookups read Redis with one
+ * MGET, and bulk writes are issued together so Lettuce pipelines them on one connection. Redis
+ * errors fall back to the loader. Evictions are broadcast through the {@link CacheInvalidationBus},
+ * so other instances drop their L1 copy. Keys are laid out as {@code cacheName::key}, like
+ * those of {@link ReferenceDataCache}.
+ *
+ * With a refresh-after period, an L1 entry older than it is still returned, and a reload is started
+ * in the background; concurrent readers share that reload, and keep getting the previous value until
+ * it completes.
+ *
+ * Every eviction moves an eviction epoch. A load (read-through, bulk or background refresh) records
+ * the epoch when it starts, and its result is only written back to either tier if no eviction has
+ * happened since; otherwise it is still returned to its caller, but a value read before the eviction
+ * never replaces the evicted one.
+ *
+ * @param <K> Key type; keys are stored under their string form
+ * @param <V> Value type
+ */
+@Slf4j
+public class ReactiveCache<K, V> {
+
+    private final String name;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final JavaType valueType;
+    private final Duration timeToLive;
+    private final Cache<K, Stamped<V>> local;
+    private final CacheInvalidationBus invalidationBus;
+    private final long refreshAfterNanos;
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Timer refreshed;
+    private final Timer refreshFailed;
+
+    public ReactiveCache(String name,
+                         ReactiveRedisTemplate<String, Object> redisTemplate,
+                         ObjectMapper objectMapper,
+                         JavaType valueType,
+                         Duration timeToLive,
+                         Cache<K, Stamped<V>> local,
+                         CacheInvalidationBus invalidationBus,
+                         Duration refreshAfter,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.valueType = valueType;
+        this.timeToLive = timeToLive;
+        this.local = local;
+        this.invalidationBus = invalidationBus;
+        this.refreshAfterNanos = refreshAfter == null ? Long.MAX_VALUE : refreshAfter.toNanos();
+        this.sharedHits = meterRegistry.counter("cache.tier.requests", "cache", name, "tier", "l2", "result", "hit");
+        this.sharedMisses = meterRegistry.counter("cache.tier.requests", "cache", name, "tier", "l2", "result", "miss");
+        this.refreshed = meterRegistry.timer("cache.refresh", "cache", name, "result", "success");
+        this.refreshFailed = meterRegistry.timer("cache.refresh", "cache", name, "result", "failure");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counter of the changes made to this instance's L1: it moves whenever an entry is stored,
+     * reloaded or evicted, so anything derived from the cached values is current while it is unchanged
+     * @return The current version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Get a value, loading and caching it on a miss
+     * @param key Key to look up
+     * @param loader Loads the value on a miss; an empty result is not cached
+     * @return Mono of the value, or empty if the loader found nothing
+     */
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            Stamped<V> cached = local.getIfPresent(key);
+            if (cached != null) {
+                if (isStale(cached)) {
+                    refresh(Set.of(key), keys -> loader.apply(key).map(value -> Map.of(key, value)));
+                }
+                return Mono.just(cached.value());
+            }
+            return inFlight.computeIfAbsent(key, k -> readThrough(k, loader)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+        });
+    }
+
+    /**
+     * Get a value only if one of the tiers holds it, without loading it
+     * @param key Key to look up
+     * @return Mono of the cached value, or empty
+     */
+    public Mono<V> getIfPresent(K key) {
+        return Mono.defer(() -> {
+            Stamped<V> cached = local.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached.value());
+            }
+            return redisTemplate.opsForValue().get(redisKey(key))
+                .onErrorResume(error -> redisFailed("read", error, null))
+                .mapNotNull(this::fromRedis);
+        });
+    }
+
+    /**
+     * Get a cached sequence, for caches whose values are lists; the loader's elements are
+     * collected and cached as one list
+     * @param key Key to look up
+     * @param loader Loads the elements on a miss
+     * @return Flux of the cached elements
+     */
+    @SuppressWarnings("unchecked")
+    public <E> Flux<E> getMany(K key, Function<K, Flux<E>> loader) {
+        return get(key, k -> (Mono<V>) loader.apply(k).collectList())
+            .flatMapIterable(value -> (List<E>) value);
+    }
+
+    /**
+     * Get several values at once, loading the misses in bulk
+     * @param keys Keys to look up
+     * @param loader Loads the values of the keys missing from both tiers
+     * @return Mono of the values found, by key
+     */
+    public Mono<Map<K, V>> getAll(Collection<K> keys, Function<Set<K>, Mono<Map<K, V>>> loader) {
+        return Mono.defer(() -> {
+            long epoch = evictions.get();
+            Map<K, V> found = new HashMap<>();
+            List<K> missing = new ArrayList<>();
+            Set<K> stale = new LinkedHashSet<>();
+            for (K key : new LinkedHashSet<>(keys)) {
+                Stamped<V> cached = local.getIfPresent(key);
+                if (cached != null) {
+                    found.put(key, cached.value());
+                    if (isStale(cached)) {
+                        stale.add(key);
+                    }
+                } else {
+                    missing.add(key);
+                }
+            }
+            if (!stale.isEmpty()) {
+                refresh(stale, loader);
+            }
+            if (missing.isEmpty()) {
+                return Mono.just(found);
+            }
+
+            return redisTemplate.opsForValue().multiGet(missing.stream().map(this::redisKey).toList())
+                .onErrorResume(error -> redisFailed("read", error, List.of()))
+                .defaultIfEmpty(List.of())
+                .flatMap(values -> {
+                    Set<K> toLoad = new LinkedHashSet<>();
+                    for (int i = 0; i < missing.size(); i++) {
+                        V value = i < values.size() ? fromRedis(values.get(i)) : null;
+                        if (value != null) {
+                            found.put(missing.get(i), value);
+                            storeIfCurrent(missing.get(i), value, epoch);
+                        } else {
+                            toLoad.add(missing.get(i));
+                        }
+                    }
+                    sharedHits.increment(missing.size() - toLoad.size());
+                    sharedMisses.increment(toLoad.size());
+                    if (toLoad.isEmpty()) {
+                        return Mono.just(found);
+                    }
+                    return loader.apply(toLoad)
+                        .flatMap(loaded -> putAllIfCurrent(loaded, epoch).thenReturn(loaded))
+                        .map(loaded -> {
+                            found.putAll(loaded);
+                            return found;
+                        })
+                        .defaultIfEmpty(found);
+                });
+        });
+    }
+
+    /**
+     * Store a value in both tiers
+     * @param key Key to store under
+     * @param value Value to store
+     * @return Mono completing once Redis has been written, or has failed
+     */
+    public Mono<Void> put(K key, V value) {
+        return putAll(Map.of(key, value));
+    }
+
+    /**
+     * Store several values in both tiers; the Redis writes are issued together and pipelined
+     * @param values Values to store, by key
+     * @return Mono completing once Redis has been written, or has failed
+     */
+    public Mono<Void> putAll(Map<K, V> values) {
+        return Flux.fromIterable(values.entrySet())
+            .doOnNext(entry -> store(entry.getKey(), entry.getValue()))
+            .flatMap(entry -> redisTemplate.opsForValue().set(redisKey(entry.getKey()), entry.getValue(), timeToLive))
+            .onErrorResume(error -> redisFailed("write", error, null))
+            .then();
+    }
+
+    /**
+     * Remove values from both tiers on this instance and from L1 on every other instance
+     * @param keys Keys to remove
+     * @return Mono completing once Redis has been updated, or has failed
+     */
+    public Mono<Void> evict(Collection<K> keys) {
+        return Mono.defer(() -> {
+            if (keys.isEmpty()) {
+                return Mono.empty();
+            }
+            // Moved before the delete, so a load that writes back after it is caught by its recheck
+            evictions.incrementAndGet();
+            List<String> redisKeys = keys.stream().map(this::redisKey).toList();
+            return redisTemplate.delete(redisKeys.toArray(String[]::new))
+                .onErrorResume(error -> redisFailed("delete", error, null))
+                .doFinally(signal -> keys.forEach(key -> {
+                    local.invalidate(key);
+                    version.incrementAndGet();
+                    invalidationBus.publishEvict(name, String.valueOf(key));
+                }))
+                .then();
+        });
+    }
+
+    /**
+     * Drop entries from L1 only, after another instance has evicted them
+     * @param key String form of the key, or null to drop every entry
+     */
+    void invalidateLocal(String key) {
+        evictions.incrementAndGet();
+        version.incrementAndGet();
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.asMap().keySet().removeIf(cached -> String.valueOf(cached).equals(key));
+        }
+    }
+
+    private Mono<V> readThrough(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long epoch = evictions.get();
+            return redisTemplate.opsForValue().get(redisKey(key))
+                .onErrorResume(error -> redisFailed("read", error, null))
+                .mapNotNull(this::fromRedis)
+                .doOnNext(value -> {
+                    sharedHits.increment();
+                    storeIfCurrent(key, value, epoch);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    sharedMisses.increment();
+                    return loader.apply(key).flatMap(value -> putAllIfCurrent(Map.of(key, value), epoch).thenReturn(value));
+                }));
+        });
+    }
+
+    private void store(K key, V value) {
+        local.put(key, new Stamped<>(value, System.nanoTime()));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Store a value loaded since the given eviction epoch in L1, unless an eviction has happened since
+     */
+    private void storeIfCurrent(K key, V value, long epoch) {
+        if (evictions.get() != epoch) {
+            return;
+        }
+        store(key, value);
+        if (evictions.get() != epoch) {
+            local.invalidate(key);
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Store loaded values in both tiers unless an eviction has happened since the load started. An
+     * eviction racing with the write is caught by the recheck, which removes the values again.
+     */
+    private Mono<Void> putAllIfCurrent(Map<K, V> values, long epoch) {
+        if (evictions.get() != epoch) {
+            return Mono.empty();
+        }
+        return putAll(values)
+            .then(Mono.defer(() -> evictions.get() == epoch ? Mono.<Void>empty() : discard(values.keySet())));
+    }
+
+    private Mono<Void> discard(Collection<K> keys) {
+        keys.forEach(local::invalidate);
+        version.incrementAndGet();
+        return redisTemplate.delete(keys.stream().map(this::redisKey).toArray(String[]::new))
+            .onErrorResume(error -> redisFailed("delete", error, null))
+            .then();
+    }
+
+    private boolean isStale(Stamped<V> cached) {
+        return System.nanoTime() - cached.loadedAt() >= refreshAfterNanos;
+    }
+
+    /**
+     * Reload entries in the background, skipping the ones already being reloaded; the reloaded
+     * values replace the stale ones in both tiers
+     */
+    private void refresh(Set<K> stale, Function<Set<K>, Mono<Map<K, V>>> loader) {
+        Set<K> claimed = new LinkedHashSet<>();
+        for (K key : stale) {
+            if (refreshing.add(key)) {
+                claimed.add(key);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        long epoch = evictions.get();
+        Mono.defer(() -> loader.apply(claimed))
+            .flatMap(loaded -> putAllIfCurrent(loaded, epoch))
+            .doFinally(signal -> refreshing.removeAll(claimed))
+            .subscribe(null,
+                error -> {
+                    sample.stop(refreshFailed);
+                    log.warn("Background refresh of cache {} failed, keeping the previous values: {}", name, error.getMessage());
+                },
+                () -> sample.stop(refreshed));
+    }
+
+    private V fromRedis(Object value) {
+        return value == null ? null : objectMapper.convertValue(value, valueType);
+    }
+
+    private <T> Mono<T> redisFailed(String operation, Throwable error, T fallback) {
+        log.warn("Redis {} failed for cache {}: {}", operation, name, error.getMessage());
+        return Mono.justOrEmpty(fallback);
+    }
+
+    private String redisKey(K key) {
+        return name + "::" + key;
+    }
+
+    /**
+     * An L1 entry with the time it was loaded
+     * @param value Cached value
+     * @param loadedAt {@link System#nanoTime()} when the value was loaded
+     */
+    public record Stamped<V>(V value, long loadedAt) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the {@link ReactiveCache}s, sharing the Redis template, the L1 settings and the
+ * invalidation channel between them.
+ */
+@Component
+public class ReactiveCacheManager {
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final Duration sharedTimeToLive;
+    private final long localMaximumSize;
+    private final Duration localTimeToLive;
+    private final Map<String, ReactiveCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public ReactiveCacheManager(ReactiveRedisTemplate<String, Object> redisTemplate,
+                                ObjectMapper objectMapper,
+                                CacheInvalidationBus invalidationBus,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.cache.redis.time-to-live:300000}") long sharedTimeToLiveMs,
+                                @Value("${transaction.cache.l1.maximum-size:10000}") long localMaximumSize,
+                                @Value("${transaction.cache.l1.time-to-live:30s}") Duration localTimeToLive) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.sharedTimeToLive = Duration.ofMillis(sharedTimeToLiveMs);
+        this.localMaximumSize = localMaximumSize;
+        this.localTimeToLive = localTimeToLive;
+        invalidationBus.addListener(this::onInvalidation);
+    }
+
+    /**
+     * Get or create a cache
+     * @param name Cache name, also the Redis key prefix
+     * @param valueType Type values are read back as from Redis
+     * @return The cache
+     */
+    public <K, V> ReactiveCache<K, V> getCache(String name, JavaType valueType) {
+        return getCache(name, valueType, null, localTimeToLive);
+    }
+
+    /**
+     * Get or create a cache
+     * @param name Cache name, also the Redis key prefix
+     * @param valueType Type values are read back as from Redis
+     * @return The cache
+     */
+    public <K, V> ReactiveCache<K, V> getCache(String name, Class<V> valueType) {
+        return getCache(name, objectMapper.constructType(valueType));
+    }
+
+    /**
+     * Get or create a cache that reloads entries in the background once they are older than
+     * refreshAfter. Redis entries expire after refreshAfter, so a value read from Redis is at most
+     * that old. An L1 entry is served while it is refreshed, but never more than maxStaleness after
+     * it was loaded, so a reload that keeps failing cannot keep an old value in use.
+     * @param name Cache name, also the Redis key prefix
+     * @param valueType Type values are read back as from Redis
+     * @param refreshAfter Age after which a read starts a background reload, or null for none
+     * @param maxStaleness How long after loading an L1 entry may still be served
+     * @return The cache
+     */
+    public <K, V> ReactiveCache<K, V> getCache(String name, JavaType valueType, Duration refreshAfter, Duration maxStaleness) {
+        @SuppressWarnings("unchecked")
+        ReactiveCache<K, V> cache = (ReactiveCache<K, V>) caches.computeIfAbsent(name,
+            key -> createCache(key, valueType, refreshAfter, maxStaleness));
+        return cache;
+    }
+
+    /**
+     * Get or create a cache that reloads entries in the background
+     * @see #getCache(String, JavaType, Duration, Duration)
+     */
+    public <K, V> ReactiveCache<K, V> getCache(String name, Class<V> valueType, Duration refreshAfter, Duration maxStaleness) {
+        return getCache(name, objectMapper.constructType(valueType), refreshAfter, maxStaleness);
+    }
+
+    private <K, V> ReactiveCache<K, V> createCache(String name, JavaType valueType, Duration refreshAfter,
+                                                   Duration maxStaleness) {
+        Cache<K, ReactiveCache.Stamped<V>> local = Caffeine.newBuilder()
+            .maximumSize(localMaximumSize)
+            .expireAfterWrite(refreshAfter == null ? localTimeToLive : maxStaleness)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, "tier", "l1");
+        return new ReactiveCache<>(name, redisTemplate, objectMapper, valueType,
+            refreshAfter == null ? sharedTimeToLive : refreshAfter, local, invalidationBus, refreshAfter, meterRegistry);
+    }
+
+    private void onInvalidation(CacheInvalidationBus.Invalidation invalidation) {
+        ReactiveCache<?, ?> cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.invalidateLocal(invalidation.key());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tabcorp.transaction.management.entity.Product;
+import com.tabcorp.transaction.management.repository.CustomerRepository;
+import com.tabcorp.transaction.management.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Two-tier cache of the reference data used to validate transactions.
+ *
+ * Lookups are served from an in-process Caffeine cache (L1), then from the Redis {@code customerCache}
+ * and {@code productCache} (L2), and only then from the database. Misses are loaded asynchronously in
+ * bulk, and concurrent lookups of a key that is already being loaded wait on the same load instead
+ * of issuing their own query. Only positive results are cached, so a customer or product created
+ * after a failed lookup is picked up straight away. Redis errors fall back to the database.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    static final String CUSTOMER_CACHE = "customerCache";
+    static final String PRODUCT_CACHE = "productCache";
+
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration redisTimeToLive;
+
+    private final AsyncCache<Integer, Boolean> customers;
+    private final AsyncCache<String, Product> products;
+
+    public ReferenceDataCache(CustomerRepository customerRepository,
+                              ProductRepository productRepository,
+                              ReactiveRedisTemplate<String, Object> redisTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${transaction.reference-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${transaction.reference-cache.time-to-live:5m}") Duration timeToLive,
+                              @Value("${spring.cache.redis.time-to-live:300000}") long redisTimeToLiveMs) {
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.redisTimeToLive = Duration.ofMillis(redisTimeToLiveMs);
+
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, customers.synchronous(), CUSTOMER_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, products.synchronous(), PRODUCT_CACHE);
+    }
+
+    /**
+     * Check whether a customer exists
+     * @param customerId Customer id to check
+     * @return Mono<Boolean> true if the customer exists
+     */
+    public Mono<Boolean> customerExists(Integer customerId) {
+        return existingCustomers(List.of(customerId)).map(existing -> existing.contains(customerId));
+    }
+
+    /**
+     * Resolve which of the given customers exist
+     * @param customerIds Customer ids to check
+     * @return Mono<Set<Integer>> The ids of the customers that exist
+     */
+    public Mono<Set<Integer>> existingCustomers(Collection<Integer> customerIds) {
+        return Mono.fromFuture(() -> customers.getAll(customerIds, (missing, executor) -> loadCustomers(missing).toFuture()), true)
+                .map(Map::keySet);
+    }
+
+    /**
+     * Get a product by code
+     * @param productCode Product code to look up
+     * @return Mono<Product> The product, or empty if it does not exist
+     */
+    public Mono<Product> getProduct(String productCode) {
+        return getProducts(List.of(productCode)).mapNotNull(found -> found.get(productCode));
+    }
+
+    /**
+     * Get the products with the given codes
+     * @param productCodes Product codes to look up
+     * @return Mono<Map<String, Product>> The products found, by product code
+     */
+    public Mono<Map<String, Product>> getProducts(Collection<String> productCodes) {
+        return Mono.fromFuture(() -> products.getAll(productCodes, (missing, executor) -> loadProducts(missing).toFuture()), true);
+    }
+
+    private Mono<Map<Integer, Boolean>> loadCustomers(Set<? extends Integer> customerIds) {
+        return loadThroughRedis(CUSTOMER_CACHE, customerIds, value -> Boolean.TRUE.equals(value) ? Boolean.TRUE : null,
+                missing -> customerRepository.findExistingCustomerIds(missing)
+                        .collectMap(Function.identity(), customerId -> Boolean.TRUE));
+    }
+
+    private Mono<Map<String, Product>> loadProducts(Set<? extends String> productCodes) {
+        return loadThroughRedis(PRODUCT_CACHE, productCodes, value -> objectMapper.convertValue(value, Product.class),
+                missing -> productRepository.findByProductCodeIn(missing)
+                        .collectMap(Product::getProductCode));
+    }
+
+    /**
+     * Resolve L1 misses from Redis with one MGET, then load what Redis does not hold from the
+     * database and write it back to Redis.
+     */
+    private <K, V> Mono<Map<K, V>> loadThroughRedis(String cacheName, Set<? extends K> keys,
+                                                  Function<Object, V> fromRedis,
+                                                  Function<List<K>, Mono<Map<K, V>>> fromDatabase) {
+        List<K> requested = new ArrayList<>(keys);
+        List<String> redisKeys = requested.stream().map(k -> key(cacheName, k)).toList();
+
+        return redisTemplate.opsForValue().multiGet(redisKeys)
+                .onErrorResume(error -> logRedisError("read", error, null))
+                .defaultIfEmpty(List.of())
+                .flatMap(cached -> {
+                    Map<K, V> loaded = new HashMap<>();
+                    List<K> missing = new ArrayList<>();
+                    for (int i = 0; i < requested.size(); i++) {
+                        Object value = i < cached.size() ? cached.get(i) : null;
+                        V resolved = value == null ? null : fromRedis.apply(value);
+                        if (resolved != null) {
+                            loaded.put(requested.get(i), resolved);
+                        } else {
+                            missing.add(requested.get(i));
+                        }
+                    }
+                    meterRegistry.counter("reference.cache.redis.requests", "cache", cacheName, "result", "hit")
+                            .increment(loaded.size());
+                    meterRegistry.counter("reference.cache.redis.requests", "cache", cacheName, "result", "miss")
+                            .increment(missing.size());
+
+                    if (missing.isEmpty()) {
+                        return Mono.just(loaded);
+                    }
+                    log.debug("Loading {} {} entries from the database", missing.size(), cacheName);
+                    return fromDatabase.apply(missing)
+                            .flatMap(fromDb -> writeToRedis(cacheName, fromDb).thenReturn(fromDb))
+                            .map(fromDb -> {
+                                loaded.putAll(fromDb);
+                                return loaded;
+                            });
+                });
+    }
+
+    private <K, V> Mono<Void> writeToRedis(String cacheName, Map<K, V> values) {
+        return Flux.fromIterable(values.entrySet())
+                .flatMap(entry -> redisTemplate.opsForValue()
+                        .set(key(cacheName, entry.getKey()), entry.getValue(), redisTimeToLive))
+                .onErrorResume(error -> logRedisError("write", error, null))
+                .then();
+    }
+
+    private <T> Mono<T> logRedisError(String operation, Throwable error, T fallback) {
+        log.warn("Redis {} failed for reference data, falling back to the database: {}", operation, error.getMessage());
+        return Mono.justOrEmpty(fallback);
+    }
+
+    // Same key layout as ReactiveCache, so both share the cache namespaces
+    private static String key(String cacheName, Object key) {
+        return cacheName + "::" + key;
+    }
+}
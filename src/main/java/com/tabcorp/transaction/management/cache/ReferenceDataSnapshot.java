@@ -0,0 +1,115 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.tabcorp.transaction.management.entity.Product;
+import com.tabcorp.transaction.management.repository.CustomerRepository;
+import com.tabcorp.transaction.management.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory snapshot of every customer id and product, used to validate transactions without
+ * any I/O.
+ *
+ * Customer ids are held in a primitive {@link IntHashSet} and products in an immutable map of
+ * {@link ProductReference}. A reload builds a complete new snapshot and swaps it in atomically, so
+ * readers never see a partially loaded one. The snapshot is reloaded every
+ * {@code transaction.reference-snapshot.refresh-interval}, starting at startup, and on demand
+ * through the reload endpoint. Anything missing from the snapshot, such as a customer created
+ * since the last reload, is resolved through {@link ReferenceDataCache} by the caller.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceDataSnapshot {
+
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(
+        new Snapshot(new IntHashSet(0), Map.of()));
+    private Timer reloadTimer;
+
+    @PostConstruct
+    public void init() {
+        reloadTimer = Timer.builder("reference.snapshot.reload.time")
+            .description("Time taken to reload the reference data snapshot")
+            .register(meterRegistry);
+        Gauge.builder("reference.snapshot.customers", this, ReferenceDataSnapshot::customerCount)
+            .register(meterRegistry);
+        Gauge.builder("reference.snapshot.products", this, ReferenceDataSnapshot::productCount)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Check whether the snapshot holds a customer
+     * @param customerId Customer id to check
+     * @return true if the customer was present at the last reload
+     */
+    public boolean containsCustomer(Integer customerId) {
+        return customerId != null && current.get().customerIds().contains(customerId);
+    }
+
+    /**
+     * Get a product from the snapshot
+     * @param productCode Product code to look up
+     * @return the product, or null if it was not present at the last reload
+     */
+    public ProductReference getProduct(String productCode) {
+        return productCode == null ? null : current.get().products().get(productCode);
+    }
+
+    public int customerCount() {
+        return current.get().customerIds().size();
+    }
+
+    public int productCount() {
+        return current.get().products().size();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${transaction.reference-snapshot.refresh-interval:60s}")
+    public void scheduledReload() {
+        reload()
+            .onErrorResume(error -> {
+                log.error("Failed to reload reference data snapshot, keeping the previous one: {}", error.getMessage());
+                return Mono.empty();
+            })
+            .block();
+    }
+
+    /**
+     * Load a new snapshot and swap it in once it is complete
+     * @return Mono completing once the new snapshot is in use
+     */
+    public Mono<Void> reload() {
+        Timer.Sample sample = Timer.start();
+
+        Mono<IntHashSet> customerIds = customerRepository.findAllCustomerIds()
+            .collect(() -> new IntHashSet(Math.max(1024, customerCount())), IntHashSet::add);
+        Mono<Map<String, ProductReference>> products = productRepository.findAll()
+            .collectMap(Product::getProductCode, ProductReference::of)
+            .map(Map::copyOf);
+
+        return Mono.zip(customerIds, products)
+            .doOnNext(loaded -> {
+                current.set(new Snapshot(loaded.getT1(), loaded.getT2()));
+                sample.stop(reloadTimer);
+                log.info("Reloaded reference data snapshot: {} customers, {} products",
+                    loaded.getT1().size(), loaded.getT2().size());
+            })
+            .then();
+    }
+
+    private record Snapshot(IntHashSet customerIds, Map<String, ProductReference> products) {
+    }
+}
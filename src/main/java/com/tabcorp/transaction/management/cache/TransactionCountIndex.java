@@ -0,0 +1,432 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.tabcorp.transaction.management.dto.TransactionDimensionsRecord;
+import com.tabcorp.transaction.management.entity.Customer;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.repository.CustomerRepository;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory count index of every stored transaction by customer location, product, payload format
+ * and status.
+ *
+ * Each transaction gets a dense ordinal, and each value of each dimension holds a
+ * {@link RoaringBitmap} of the ordinals of its transactions, so the count for one value is the
+ * bitmap's cardinality and a combined filter is the cardinality of the intersection of its bitmaps,
+ * smallest first. Either takes microseconds, with no query. Values are matched case-insensitively.
+ *
+ * The index is built from the transaction table at startup, in the same lifecycle phase as the cost
+ * summaries and so before the Kafka listener containers start, and stored batches are added to it
+ * as they are committed. Customer locations are remembered; the location of a customer first seen
+ * at ingest is looked up once, and that batch is counted when the lookup completes.
+ *
+ * Every {@code transaction.count-index.reconcile-interval} the index is caught up with the table
+ * without reading it again: the locations of transactions counted without one, because their lookup
+ * failed, are looked up again, and the rows after the highest id the last build or catch-up read are
+ * added unless they were already recorded. Setting {@code transaction.count-index.full-rebuild}
+ * rebuilds the whole index on that interval instead. Batches recorded while a rebuild runs are kept
+ * and added to the new index unless the rebuild already read them, so none are lost in the swap.
+ * Requests served before the first build completes count nothing.
+ */
+@Component
+@Slf4j
+public class TransactionCountIndex implements SmartLifecycle {
+
+    private static final Duration BUILD_TIMEOUT = Duration.ofMinutes(5);
+    private static final int CATCH_UP_BATCH_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final CustomerRepository customerRepository;
+    private final Map<Integer, String> customerLocations = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    @Value("${transaction.count-index.full-rebuild:false}")
+    private boolean fullRebuild;
+
+    // Replaced whole by a build; updated in place under the write lock
+    private Bitmaps bitmaps = new Bitmaps();
+    // Highest id read from the table by a build or catch-up, under the write lock
+    private long scannedToId;
+    // Transactions recorded since the running build started, under the write lock; null when no build runs
+    private List<Entry> recordedDuringBuild;
+    private volatile boolean running;
+
+    public TransactionCountIndex(TransactionRepository transactionRepository,
+                                 CustomerRepository customerRepository,
+                                 MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.customerRepository = customerRepository;
+        Gauge.builder("transaction.count-index.size", this, TransactionCountIndex::size)
+            .description("Transactions held in the count index")
+            .register(meterRegistry);
+    }
+
+    public enum Dimension {
+        LOCATION, PRODUCT, FORMAT, STATUS
+    }
+
+    /**
+     * Count the transactions matching every given filter
+     * @param filters Value required for each filtered dimension; an empty map counts every transaction
+     * @return The number of matching transactions
+     */
+    public long count(Map<Dimension, String> filters) {
+        lock.readLock().lock();
+        try {
+            if (filters.isEmpty()) {
+                return bitmaps.size;
+            }
+            List<RoaringBitmap> matching = new ArrayList<>(filters.size());
+            for (Map.Entry<Dimension, String> filter : filters.entrySet()) {
+                RoaringBitmap bitmap = bitmaps.get(filter.getKey(), filter.getValue());
+                if (bitmap == null) {
+                    return 0;
+                }
+                matching.add(bitmap);
+            }
+            if (matching.size() == 1) {
+                return matching.get(0).getLongCardinality();
+            }
+            // Intersect the smallest bitmaps first, so every intermediate result stays small
+            matching.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+            RoaringBitmap intersection = matching.get(0);
+            for (int i = 1; i < matching.size() - 1; i++) {
+                intersection = RoaringBitmap.and(intersection, matching.get(i));
+            }
+            return RoaringBitmap.andCardinality(intersection, matching.get(matching.size() - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add stored transactions to the index
+     * @param transactions Transactions that have been committed
+     */
+    public void record(Collection<Transaction> transactions) {
+        Set<Integer> unknown = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getCustomerId() != null && !customerLocations.containsKey(transaction.getCustomerId())) {
+                unknown.add(transaction.getCustomerId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            add(transactions);
+            return;
+        }
+        customerRepository.findAllById(unknown)
+            .doOnNext(this::rememberLocation)
+            .then()
+            .subscribe(null,
+                error -> {
+                    log.warn("Failed to look up customer locations, counting the batch without them: {}", error.getMessage());
+                    add(transactions);
+                },
+                () -> add(transactions));
+    }
+
+    /**
+     * Build a new index from every stored transaction and swap it in. Does nothing if a build is
+     * already running.
+     * @return Mono completing once the new index is in use
+     */
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            if (!building.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            setRecordedDuringBuild(new ArrayList<>());
+            return customerRepository.findAll()
+                .doOnNext(this::rememberLocation)
+                .thenMany(transactionRepository.findDimensionsAfter(0L))
+                .reduceWith(Build::new, Build::add)
+                .doOnNext(this::swap)
+                .doFinally(signalType -> {
+                    setRecordedDuringBuild(null);
+                    building.set(false);
+                })
+                .then();
+        });
+    }
+
+    /**
+     * Catch the index up with the table: look up again the locations that were missing when their
+     * transactions were counted, then add the rows after the highest id read so far that were not
+     * recorded. Does nothing if a build or catch-up is already running.
+     * @return Mono completing once the index is caught up
+     */
+    public Mono<Void> catchUp() {
+        return Mono.defer(() -> {
+            if (!building.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return locateUnlocated()
+                .thenMany(Flux.defer(() -> transactionRepository.findDimensionsAfter(scannedToId())))
+                .buffer(CATCH_UP_BATCH_SIZE)
+                .doOnNext(this::addScanned)
+                .doFinally(signalType -> building.set(false))
+                .then();
+        });
+    }
+
+    @Scheduled(initialDelayString = "${transaction.count-index.reconcile-interval:5m}",
+               fixedDelayString = "${transaction.count-index.reconcile-interval:5m}")
+    public void reconcile() {
+        (fullRebuild ? rebuild() : catchUp())
+            .doOnSuccess(ignored -> log.debug("Reconciled transaction count index, {} transactions", size()))
+            .onErrorResume(error -> {
+                log.error("Failed to reconcile transaction count index, keeping the current one: {}", error.getMessage());
+                return Mono.empty();
+            })
+            .block(BUILD_TIMEOUT);
+    }
+
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        rebuild().block(BUILD_TIMEOUT);
+        running = true;
+        log.info("Built transaction count index of {} transactions in {} ms",
+            size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Kafka listener containers start in phase Integer.MAX_VALUE - 100
+        return Integer.MAX_VALUE - 200;
+    }
+
+    private void add(Collection<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                Entry entry = Entry.of(transaction, customerLocations);
+                if (bitmaps.add(entry) && recordedDuringBuild != null) {
+                    recordedDuringBuild.add(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addScanned(List<TransactionDimensionsRecord> rows) {
+        lock.writeLock().lock();
+        try {
+            for (TransactionDimensionsRecord row : rows) {
+                bitmaps.add(Entry.of(row));
+                scannedToId = Math.max(scannedToId, row.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long scannedToId() {
+        lock.readLock().lock();
+        try {
+            return scannedToId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Mono<Void> locateUnlocated() {
+        Set<Integer> customerIds;
+        lock.readLock().lock();
+        try {
+            customerIds = new HashSet<>(bitmaps.unlocated.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (customerIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return customerRepository.findAllById(customerIds)
+            .doOnNext(this::rememberLocation)
+            .then(Mono.fromRunnable(() -> locate(customerIds)));
+    }
+
+    // Customers the lookup did not return do not exist, so their transactions stay without a location
+    private void locate(Set<Integer> customerIds) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.unlocated.entrySet().removeIf(unlocated -> {
+                if (!customerIds.contains(unlocated.getValue())) {
+                    return false;
+                }
+                bitmaps.set(Dimension.LOCATION, customerLocations.get(unlocated.getValue()), unlocated.getKey());
+                return true;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void swap(Build build) {
+        Bitmaps built = build.bitmaps;
+        built.optimize();
+        lock.writeLock().lock();
+        try {
+            // Batches committed after the scan read past them are not in the new index yet
+            recordedDuringBuild.forEach(built::add);
+            bitmaps = built;
+            scannedToId = build.lastId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setRecordedDuringBuild(List<Entry> recorded) {
+        lock.writeLock().lock();
+        try {
+            recordedDuringBuild = recorded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rememberLocation(Customer customer) {
+        if (customer.getLocation() != null) {
+            customerLocations.put(customer.getCustomerId(), customer.getLocation());
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Countable dimensions of one transaction; the customer is kept only while its location is unknown
+     */
+    private record Entry(Long id, Integer customerId, String location, String productCode, String format, String status) {
+
+        static Entry of(Transaction transaction, Map<Integer, String> customerLocations) {
+            String location = transaction.getCustomerId() == null ? null : customerLocations.get(transaction.getCustomerId());
+            return new Entry(transaction.getId(), location == null ? transaction.getCustomerId() : null, location,
+                transaction.getProductCode(), transaction.getDataFormat(), transaction.getStatus());
+        }
+
+        // Read through the customer join, so a missing location is not looked up again
+        static Entry of(TransactionDimensionsRecord row) {
+            return new Entry(row.id(), null, row.location(), row.product_code(), row.data_format(), row.status());
+        }
+    }
+
+    /**
+     * Index being built, with the highest id it has read; not thread-safe
+     */
+    private static final class Build {
+
+        private final Bitmaps bitmaps = new Bitmaps();
+        private long lastId;
+
+        Build add(TransactionDimensionsRecord row) {
+            bitmaps.add(Entry.of(row));
+            lastId = Math.max(lastId, row.id());
+            return this;
+        }
+    }
+
+    /**
+     * One bitmap of ordinals per value of each dimension, with the ids counted; not thread-safe
+     */
+    private static final class Bitmaps {
+
+        private final Map<Dimension, Map<String, RoaringBitmap>> byDimension = new EnumMap<>(Dimension.class);
+        // Ids of the transactions counted, so a transaction both recorded and read from the table is counted once
+        private final Roaring64Bitmap ids = new Roaring64Bitmap();
+        // Customer of each ordinal counted without a location because its lookup failed
+        private final Map<Integer, Integer> unlocated = new HashMap<>();
+        private int size;
+
+        Bitmaps() {
+            for (Dimension dimension : Dimension.values()) {
+                byDimension.put(dimension, new HashMap<>());
+            }
+        }
+
+        /**
+         * Count a transaction unless its id is already counted
+         * @return Whether it was counted
+         */
+        boolean add(Entry entry) {
+            if (entry.id() != null) {
+                if (ids.contains(entry.id())) {
+                    return false;
+                }
+                ids.addLong(entry.id());
+            }
+            int ordinal = size++;
+            set(Dimension.LOCATION, entry.location(), ordinal);
+            set(Dimension.PRODUCT, entry.productCode(), ordinal);
+            set(Dimension.FORMAT, entry.format(), ordinal);
+            set(Dimension.STATUS, entry.status(), ordinal);
+            if (entry.location() == null && entry.customerId() != null) {
+                unlocated.put(ordinal, entry.customerId());
+            }
+            return true;
+        }
+
+        RoaringBitmap get(Dimension dimension, String value) {
+            return byDimension.get(dimension).get(normalize(value));
+        }
+
+        void optimize() {
+            byDimension.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+        }
+
+        void set(Dimension dimension, String value, int ordinal) {
+            if (value != null) {
+                byDimension.get(dimension).computeIfAbsent(normalize(value), key -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+    }
+}
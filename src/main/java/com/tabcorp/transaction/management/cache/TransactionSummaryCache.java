@@ -0,0 +1,274 @@
+package com.tabcorp.transaction.management.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
+import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches the customer and product cost summaries one entry per customer or product, so stored
+ * transactions only invalidate the summaries they change.
+ *
+ * Each listing is cached as the ordered list of its customer ids or product codes, and read back
+ * with one MGET of the entries; entries missing from the cache are reloaded together with one
+ * query. Customers and products of stored transactions are collected and evicted together once per
+ * invalidation window, so continuous ingest costs one Redis DEL per window, and reads keep being
+ * served from the cache in between. A listing is only dropped when a customer or product appears
+ * in it for the first time.
+ *
+ * Entries are refreshed ahead of expiry: once older than the refresh-after period, reads keep
+ * getting the cached value while one background reload replaces it, so busy dashboards never wait
+ * on the summary queries. Refresh latency is exported as {@code cache.refresh}.
+ *
+ * The listings are also kept encoded as JSON, so repeated reads of unchanged summaries do not
+ * serialize them again.
+ */
+@Component
+@Slf4j
+public class TransactionSummaryCache {
+
+    private static final String LISTING_KEY = "all";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionSummaryMapper mapper;
+    private final ReactiveCache<Integer, CustomerTransactionSummaryDTO> customers;
+    private final ReactiveCache<String, ProductTransactionSummaryDTO> products;
+    private final ReactiveCache<String, List<Integer>> customerListing;
+    private final ReactiveCache<String, List<String>> productListing;
+    private final ObjectMapper objectMapper;
+    private final long encodedMaxAgeNanos;
+    private final Set<Integer> dirtyCustomers = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyProducts = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<EncodedListing> encodedCustomers = new AtomicReference<>();
+    private final AtomicReference<EncodedListing> encodedProducts = new AtomicReference<>();
+
+    public TransactionSummaryCache(TransactionRepository transactionRepository,
+                                   TransactionSummaryMapper mapper,
+                                   ReactiveCacheManager cacheManager,
+                                   ObjectMapper objectMapper,
+                                   @Value("${transaction.cache.summary-refresh.refresh-after:60s}") Duration refreshAfter,
+                                   @Value("${transaction.cache.summary-refresh.max-staleness:5m}") Duration maxStaleness) {
+        this.transactionRepository = transactionRepository;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.encodedMaxAgeNanos = refreshAfter.toNanos();
+        TypeFactory types = TypeFactory.defaultInstance();
+        this.customers = cacheManager.getCache("customerSummaryCache", CustomerTransactionSummaryDTO.class,
+            refreshAfter, maxStaleness);
+        this.products = cacheManager.getCache("productSummaryCache", ProductTransactionSummaryDTO.class,
+            refreshAfter, maxStaleness);
+        this.customerListing = cacheManager.getCache("customerSummaryListing",
+            types.constructCollectionType(List.class, Integer.class), refreshAfter, maxStaleness);
+        this.productListing = cacheManager.getCache("productSummaryListing",
+            types.constructCollectionType(List.class, String.class), refreshAfter, maxStaleness);
+    }
+
+    /**
+     * Get the summaries of every customer
+     * @return Flux of customer summaries, in listing order
+     */
+    public Flux<CustomerTransactionSummaryDTO> customerSummaries() {
+        return listing(customerListing, customers, this::loadAllCustomers, this::loadCustomers,
+            CustomerTransactionSummaryDTO::getCustomerId);
+    }
+
+    /**
+     * Get the summaries of every product
+     * @return Flux of product summaries, in listing order
+     */
+    public Flux<ProductTransactionSummaryDTO> productSummaries() {
+        return listing(productListing, products, this::loadAllProducts, this::loadProducts,
+            ProductTransactionSummaryDTO::getProductCode);
+    }
+
+    /**
+     * Get the summaries of every customer as an encoded JSON array
+     * @return Mono of the encoded listing, reused for as long as the cached summaries are unchanged
+     */
+    public Mono<EncodedResponse> encodedCustomerSummaries() {
+        return encoded(encodedCustomers, customerListing.version() + customers.version(), this::customerSummaries);
+    }
+
+    /**
+     * Get the summaries of every product as an encoded JSON array
+     * @return Mono of the encoded listing, reused for as long as the cached summaries are unchanged
+     */
+    public Mono<EncodedResponse> encodedProductSummaries() {
+        return encoded(encodedProducts, productListing.version() + products.version(), this::productSummaries);
+    }
+
+    /**
+     * Get the summary of one customer
+     * @param customerId Customer to look up
+     * @return Mono of the summary, or empty if the customer has no transactions
+     */
+    public Mono<CustomerTransactionSummaryDTO> customerSummary(Integer customerId) {
+        return customers.get(customerId, id -> loadCustomers(Set.of(id)).mapNotNull(loaded -> loaded.get(id)));
+    }
+
+    /**
+     * Get the summary of one product
+     * @param productCode Product to look up
+     * @return Mono of the summary, or empty if the product has no transactions
+     */
+    public Mono<ProductTransactionSummaryDTO> productSummary(String productCode) {
+        return products.get(productCode, code -> loadProducts(Set.of(code)).mapNotNull(loaded -> loaded.get(code)));
+    }
+
+    /**
+     * Record the customers and products of stored transactions; their summaries are evicted at
+     * the end of the current invalidation window
+     * @param transactions Transactions that were stored
+     */
+    public void invalidate(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            if (transaction.getCustomerId() != null) {
+                dirtyCustomers.add(transaction.getCustomerId());
+            }
+            if (transaction.getProductCode() != null) {
+                dirtyProducts.add(transaction.getProductCode());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.cache.summary-invalidation.window:1s}")
+    public void scheduledFlush() {
+        flush()
+            .onErrorResume(error -> {
+                log.warn("Failed to invalidate transaction summaries: {}", error.getMessage());
+                return Mono.empty();
+            })
+            .block();
+    }
+
+    /**
+     * Evict the summaries recorded since the last flush
+     * @return Mono completing once the evictions have been sent
+     */
+    public Mono<Void> flush() {
+        Set<Integer> customerIds = drain(dirtyCustomers);
+        Set<String> productCodes = drain(dirtyProducts);
+        return Mono.when(
+            evict(customers, customerListing, customerIds),
+            evict(products, productListing, productCodes));
+    }
+
+    /**
+     * Reuse the encoded listing while the versions of the caches it was built from are unchanged,
+     * and for at most the refresh period, so refresh-ahead keeps running. Callers that find it out
+     * of date share one re-encoding.
+     */
+    private Mono<EncodedResponse> encoded(AtomicReference<EncodedListing> holder, long version,
+                                          Supplier<Flux<?>> listing) {
+        EncodedListing current = holder.get();
+        if (current != null && current.version() == version && System.nanoTime() - current.encodedAt() < encodedMaxAgeNanos) {
+            return current.response();
+        }
+        EncodedListing next = new EncodedListing(version, System.nanoTime(),
+            listing.get().collectList().map(this::encode).cache());
+        EncodedListing witness = holder.compareAndExchange(current, next);
+        EncodedListing used = witness == current ? next : witness;
+        return used.response().doOnError(error -> holder.compareAndSet(used, null));
+    }
+
+    private EncodedResponse encode(List<?> values) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(values);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return new EncodedResponse(body, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to encode transaction summaries", e);
+        }
+    }
+
+    private static <K, V> Flux<V> listing(ReactiveCache<String, List<K>> listingCache,
+                                          ReactiveCache<K, V> entries,
+                                          Supplier<Flux<V>> loadAll,
+                                          Function<Set<K>, Mono<Map<K, V>>> loadSome,
+                                          Function<V, K> keyOf) {
+        // A listing miss loads every entry with one query and caches them before their keys
+        Mono<List<K>> keys = listingCache.get(LISTING_KEY, key -> loadAll.get()
+            .collectMap(keyOf, Function.identity(), LinkedHashMap::new)
+            .flatMap(all -> entries.putAll(all).thenReturn(List.copyOf(all.keySet()))));
+        return keys.flatMapMany(listed -> entries.getAll(listed, loadSome)
+            .flatMapIterable(found -> listed.stream().map(found::get).filter(Objects::nonNull).toList()));
+    }
+
+    private static <K, V> Mono<Void> evict(ReactiveCache<K, V> entries, ReactiveCache<String, List<K>> listingCache,
+                                           Set<K> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        // A listing only changes shape when a key it does not hold yet appears
+        Mono<Void> listing = listingCache.getIfPresent(LISTING_KEY)
+            .filter(listed -> !new HashSet<>(listed).containsAll(keys))
+            .flatMap(stale -> listingCache.evict(List.of(LISTING_KEY)));
+        return Mono.when(entries.evict(keys), listing);
+    }
+
+    private static <K> Set<K> drain(Set<K> dirty) {
+        Set<K> drained = new HashSet<>();
+        for (K key : dirty) {
+            if (dirty.remove(key)) {
+                drained.add(key);
+            }
+        }
+        return drained;
+    }
+
+    private Flux<CustomerTransactionSummaryDTO> loadAllCustomers() {
+        log.debug("Getting total cost per customer (not from cache)");
+        return transactionRepository.getTotalCostPerCustomer()
+            .map(mapper::customerTransactionRecordToDto)
+            .doOnError(error -> log.error("Error while fetching or mapping customer transaction summaries", error));
+    }
+
+    private Flux<ProductTransactionSummaryDTO> loadAllProducts() {
+        log.debug("Getting total cost per product (not from cache)");
+        return transactionRepository.getTotalCostPerProduct()
+            .map(mapper::productTransactionRecordToDto)
+            .doOnError(error -> log.error("Error while fetching or mapping product transaction summaries", error));
+    }
+
+    private Mono<Map<Integer, CustomerTransactionSummaryDTO>> loadCustomers(Set<Integer> customerIds) {
+        return transactionRepository.getTotalCostForCustomers(customerIds)
+            .map(mapper::customerTransactionRecordToDto)
+            .collectMap(CustomerTransactionSummaryDTO::getCustomerId);
+    }
+
+    private Mono<Map<String, ProductTransactionSummaryDTO>> loadProducts(Set<String> productCodes) {
+        return transactionRepository.getTotalCostForProducts(productCodes)
+            .map(mapper::productTransactionRecordToDto)
+            .collectMap(ProductTransactionSummaryDTO::getProductCode);
+    }
+
+    private record EncodedListing(long version, long encodedAt, Mono<EncodedResponse> response) {
+    }
+}
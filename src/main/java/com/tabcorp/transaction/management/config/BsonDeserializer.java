@@ -1,20 +1,37 @@
 package com.tabcorp.transaction.management.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.tabcorp.transaction.management.entity.Transaction;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.serialization.Deserializer;
+import org.bson.BSONException;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Map;
 
+/**
+ * Kafka deserializer for the BSON transactions topic.
+ *
+ * Reads the binary BSON envelope in a single pass with a {@link BsonBinaryReader} and maps its fields
+ * straight onto {@link Transaction}. The embedded {@code bsonData} document is kept as the original
+ * byte slice of the record, without being decoded or re-encoded.
+ */
 @Component
 @Slf4j
 public class BsonDeserializer implements Deserializer<Transaction> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Only used for producers that still publish JSON text on the BSON topic
+    private final ObjectMapper legacyJsonMapper = JsonMapper.builder().findAndAddModules().build();
 
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
@@ -26,12 +43,34 @@ public class BsonDeserializer implements Deserializer<Transaction> {
         if (data == null) {
             return null;
         }
-        
-        try {
-            Transaction transaction = objectMapper.readValue(data, Transaction.class);
+
+        if (!isBsonDocument(data)) {
+            return deserializeLegacyJson(data);
+        }
+
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(data))) {
+            Transaction transaction = new Transaction();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if (reader.getCurrentBsonType() == BsonType.NULL) {
+                    reader.readNull();
+                    continue;
+                }
+                switch (name) {
+                    case "customerId" -> transaction.setCustomerId(readInteger(reader));
+                    case "productCode" -> transaction.setProductCode(reader.readString());
+                    case "quantity" -> transaction.setQuantity(readInteger(reader));
+                    case "transactionTime" -> transaction.setTransactionTime(readDateTime(reader));
+                    case "bsonData" -> transaction.setBsonData(readPayload(reader, data));
+                    default -> reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
             transaction.setDataFormat("BSON");
+            tagPayloadEncoding(transaction);
             return transaction;
-        } catch (IOException e) {
+        } catch (BSONException | IllegalArgumentException e) {
             log.error("Error deserializing BSON data: {}", e.getMessage(), e);
             throw new SerializationException("Error deserializing BSON data", e);
         }
@@ -41,5 +80,71 @@ public class BsonDeserializer implements Deserializer<Transaction> {
     public void close() {
         // Nothing to close
     }
-}
 
+    /**
+     * A BSON document starts with its own little-endian length and ends with a zero byte.
+     */
+    private boolean isBsonDocument(byte[] data) {
+        if (data.length < 5) {
+            return false;
+        }
+        int length = (data[0] & 0xFF) | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 24;
+        return length == data.length && data[data.length - 1] == 0;
+    }
+
+    /**
+     * Record how the payload bytes are encoded, so nothing downstream has to inspect them again.
+     */
+    private void tagPayloadEncoding(Transaction transaction) {
+        byte[] payload = transaction.getBsonData();
+        if (payload != null) {
+            transaction.setPayloadEncoding(isBsonDocument(payload) ? "BSON" : "JSON");
+        }
+    }
+
+    private Integer readInteger(BsonBinaryReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> Math.toIntExact(reader.readInt64());
+            case DOUBLE -> (int) reader.readDouble();
+            case STRING -> Integer.valueOf(reader.readString());
+            default -> throw new IllegalArgumentException("Unexpected BSON type for integer field: " + reader.getCurrentBsonType());
+        };
+    }
+
+    private LocalDateTime readDateTime(BsonBinaryReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DATE_TIME -> LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault());
+            case INT64 -> LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readInt64()), ZoneId.systemDefault());
+            case STRING -> LocalDateTime.parse(reader.readString());
+            default -> throw new IllegalArgumentException("Unexpected BSON type for transactionTime: " + reader.getCurrentBsonType());
+        };
+    }
+
+    /**
+     * Embedded documents are returned as the slice of the record they occupy; binary values as their data.
+     */
+    private byte[] readPayload(BsonBinaryReader reader, byte[] data) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOCUMENT -> {
+                int start = reader.getBsonInput().getPosition();
+                reader.skipValue();
+                yield Arrays.copyOfRange(data, start, reader.getBsonInput().getPosition());
+            }
+            case BINARY -> reader.readBinaryData().getData();
+            default -> throw new IllegalArgumentException("Unexpected BSON type for bsonData: " + reader.getCurrentBsonType());
+        };
+    }
+
+    private Transaction deserializeLegacyJson(byte[] data) {
+        try {
+            Transaction transaction = legacyJsonMapper.readValue(data, Transaction.class);
+            transaction.setDataFormat("BSON");
+            tagPayloadEncoding(transaction);
+            return transaction;
+        } catch (IOException e) {
+            log.error("Error deserializing BSON data: {}", e.getMessage(), e);
+            throw new SerializationException("Error deserializing BSON data", e);
+        }
+    }
+}
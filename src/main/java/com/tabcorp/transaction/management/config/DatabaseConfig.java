@@ -1,13 +1,10 @@
 package com.tabcorp.transaction.management.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tabcorp.transaction.management.cache.CompactRedisSerializer;
 import io.r2dbc.h2.H2ConnectionConfiguration;
 import io.r2dbc.h2.H2ConnectionFactory;
 import io.r2dbc.h2.H2ConnectionOption;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactory;
@@ -16,7 +13,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.ReadingConverter;
-import org.springframework.data.convert.WritingConverter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
@@ -30,21 +26,19 @@ import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactor
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.r2dbc.connection.R2dbcTransactionManager;
 import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
-import org.springframework.cache.annotation.EnableCaching;
 
 import java.nio.ByteBuffer;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.List;
 
 @Configuration
 @EnableR2dbcRepositories(basePackages = "com.tabcorp.transaction.management.repository")
 @EnableTransactionManagement
-@EnableCaching
 public class DatabaseConfig extends AbstractR2dbcConfiguration {
 
     @Value("${spring.r2dbc.url}")
@@ -74,6 +68,9 @@ public class DatabaseConfig extends AbstractR2dbcConfiguration {
     @Value("${spring.redis.timeout:2000}")
     private int redisTimeout;
 
+    @Value("${transaction.cache.serializer:compact}")
+    private String cacheSerializerFormat;
+
     @Bean
     @Override
     public ConnectionFactory connectionFactory() {
@@ -129,7 +126,8 @@ public class DatabaseConfig extends AbstractR2dbcConfiguration {
     @Bean
     public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(@Qualifier("reactiveRedisConnectionFactory") ReactiveRedisConnectionFactory factory, ObjectMapper objectMapper) {
         StringRedisSerializer keySerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        RedisSerializer<Object> valueSerializer = CompactRedisSerializer.forFormat(cacheSerializerFormat,
+                new GenericJackson2JsonRedisSerializer(objectMapper));
 
         RedisSerializationContext.RedisSerializationContextBuilder<String, Object> builder =
                 RedisSerializationContext.newSerializationContext(keySerializer);
@@ -157,42 +155,26 @@ public class DatabaseConfig extends AbstractR2dbcConfiguration {
     @Bean
     @Override
     public R2dbcCustomConversions r2dbcCustomConversions() {
-        List<Converter<?, ?>> converters = Arrays.asList(
-                new JsonToByteBufferConverter(),
-                new ByteBufferToJsonConverter()
-        );
+        List<Converter<?, ?>> converters = List.of(new ByteBufferToBytesConverter());
         return new R2dbcCustomConversions(getStoreConversions(), converters);
     }
 
-    // Custom converters for JSON and BSON handling
-    @WritingConverter
-    public static class JsonToByteBufferConverter implements Converter<String, ByteBuffer> {
-        @Override
-        public ByteBuffer convert(String json) {
-            return ByteBuffer.wrap(json.getBytes());
-        }
-    }
-
+    /**
+     * Read binary columns such as {@code bson_data} as raw bytes. Text columns are read as text by
+     * the driver, so no content inspection or re-encoding is needed in either direction.
+     */
     @ReadingConverter
-    public static class ByteBufferToJsonConverter implements Converter<ByteBuffer, String> {
+    public static class ByteBufferToBytesConverter implements Converter<ByteBuffer, byte[]> {
         @Override
-        public String convert(ByteBuffer byteBuffer) {
-            // Make a copy of the byteBuffer to avoid affecting the original position
-            ByteBuffer copy = byteBuffer.duplicate();
-            byte[] bytes = new byte[copy.remaining()];
-            copy.get(bytes);
-            
-            // Try to detect if this is valid UTF-8 text
-            try {
-                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
-                decoder.decode(ByteBuffer.wrap(bytes));
-                // If we get here, it's valid UTF-8, so return it as a string
-                return new String(bytes, StandardCharsets.UTF_8);
-            } catch (CharacterCodingException e) {
-                // Not valid UTF-8 (likely binary BSON data)
-                // Return Base64 encoded version with a prefix to indicate this is binary data
-                return "BINARY:" + Base64.getEncoder().encodeToString(bytes);
+        public byte[] convert(ByteBuffer byteBuffer) {
+            // Hand over the backing array when the buffer covers all of it
+            if (byteBuffer.hasArray() && byteBuffer.arrayOffset() == 0 && byteBuffer.position() == 0
+                    && byteBuffer.remaining() == byteBuffer.array().length) {
+                return byteBuffer.array();
             }
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.duplicate().get(bytes);
+            return bytes;
         }
     }
 }
\ No newline at end of file
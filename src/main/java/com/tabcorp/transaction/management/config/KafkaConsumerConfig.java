@@ -1,6 +1,7 @@
 package com.tabcorp.transaction.management.config;
 
 import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.listener.IngestionFlowControl;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,8 +10,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.util.backoff.FixedBackOff;
 import lombok.extern.slf4j.Slf4j;
@@ -36,17 +37,13 @@ public class KafkaConsumerConfig {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, TransactionJsonDeserializer.class);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
         props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024 * 1024);
         props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        
-        JsonDeserializer<Transaction> deserializer = new JsonDeserializer<>(Transaction.class);
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.addTrustedPackages("com.tabcorp.transaction.management.entity");
-        
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new TransactionJsonDeserializer());
     }
 
     @Bean
@@ -64,7 +61,8 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Transaction> jsonKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Transaction> jsonKafkaListenerContainerFactory(
+            IngestionFlowControl ingestionFlowControl) {
         ConcurrentKafkaListenerContainerFactory<String, Transaction> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(jsonConsumerFactory());
@@ -74,11 +72,15 @@ public class KafkaConsumerConfig {
         factory.setCommonErrorHandler(kafkaErrorHandler());
         factory.getContainerProperties().setIdleBetweenPolls(0);
         factory.getContainerProperties().setPollTimeout(1000);
+        // Offsets are acknowledged by IngestionFlowControl once the batch has been persisted
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(ingestionFlowControl);
         return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Transaction> bsonKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Transaction> bsonKafkaListenerContainerFactory(
+            IngestionFlowControl ingestionFlowControl) {
         ConcurrentKafkaListenerContainerFactory<String, Transaction> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(bsonConsumerFactory());
@@ -88,6 +90,9 @@ public class KafkaConsumerConfig {
         factory.setCommonErrorHandler(kafkaErrorHandler());
         factory.getContainerProperties().setIdleBetweenPolls(0);
         factory.getContainerProperties().setPollTimeout(1000);
+        // Offsets are acknowledged by IngestionFlowControl once the batch has been persisted
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(ingestionFlowControl);
         return factory;
     }
 
@@ -0,0 +1,115 @@
+package com.tabcorp.transaction.management.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tabcorp.transaction.management.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Kafka deserializer for the JSON transactions topic.
+ *
+ * Walks the record with Jackson's streaming {@link JsonParser} and fills {@link Transaction} fields
+ * directly instead of binding through an ObjectMapper. An object or array {@code jsonData} payload is
+ * captured as the raw UTF-8 slice of the record; no tree is built and nothing is re-serialized.
+ * The shared {@link JsonFactory} recycles its parser buffers per thread, so a consumer thread reuses
+ * the same buffers for every record it reads.
+ */
+@Slf4j
+public class TransactionJsonDeserializer implements Deserializer<Transaction> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        // Nothing to configure
+    }
+
+    @Override
+    public Transaction deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Expected a JSON object for a transaction");
+            }
+
+            Transaction transaction = new Transaction();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "customerId" -> transaction.setCustomerId(readInteger(parser));
+                    case "productCode" -> transaction.setProductCode(readScalar(parser, field));
+                    case "quantity" -> transaction.setQuantity(readInteger(parser));
+                    case "transactionTime" -> transaction.setTransactionTime(readDateTime(parser));
+                    case "jsonData" -> transaction.setJsonData(readPayload(parser, data));
+                    default -> parser.skipChildren();
+                }
+            }
+            transaction.setDataFormat("JSON");
+            if (transaction.getJsonData() != null) {
+                transaction.setPayloadEncoding("JSON");
+            }
+            return transaction;
+        } catch (IOException | DateTimeParseException | NumberFormatException e) {
+            log.error("Error deserializing JSON data: {}", e.getMessage(), e);
+            throw new SerializationException("Error deserializing JSON data", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+    // getText of an object or array is only its opening bracket, so those are rejected
+    private String readScalar(JsonParser parser, String field) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            throw new SerializationException("Expected a scalar value for " + field);
+        }
+        return parser.getText();
+    }
+
+    private Integer readInteger(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_STRING
+                ? Integer.valueOf(parser.getText())
+                : parser.getIntValue();
+    }
+
+    private LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+        }
+        return LocalDateTime.parse(parser.getText());
+    }
+
+    /**
+     * A string payload is used as-is; an object or array payload is sliced out of the record bytes.
+     */
+    private String readPayload(JsonParser parser, byte[] data) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+            return parser.getText();
+        }
+        int start = (int) parser.currentTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.currentLocation().getByteOffset();
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+}
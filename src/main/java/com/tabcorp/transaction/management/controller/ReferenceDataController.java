@@ -0,0 +1,35 @@
+package com.tabcorp.transaction.management.controller;
+
+import com.tabcorp.transaction.management.cache.ReferenceDataSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reference-data")
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataController {
+
+    private final ReferenceDataSnapshot referenceDataSnapshot;
+
+    /**
+     * Reload the customer and product snapshot used for validation
+     * @return Map containing the number of customers and products loaded
+     */
+    @PostMapping(path = "/reload", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Integer>> reload() {
+        log.info("Reloading reference data snapshot");
+        return referenceDataSnapshot.reload()
+            .then(Mono.fromSupplier(() -> Map.of(
+                "customers", referenceDataSnapshot.customerCount(),
+                "products", referenceDataSnapshot.productCount())))
+            .doOnError(error -> log.error("Error reloading reference data snapshot: {}", error.getMessage()));
+    }
+}
@@ -1,20 +1,35 @@
 package com.tabcorp.transaction.management.controller;
 
+import com.tabcorp.transaction.management.dto.AttributeGroupDTO;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
-import com.tabcorp.transaction.management.repository.TransactionRepository;
+import com.tabcorp.transaction.management.dto.TopCustomerDTO;
+import com.tabcorp.transaction.management.dto.TopProductDTO;
+import com.tabcorp.transaction.management.dto.WindowSummaryDTO;
+import com.tabcorp.transaction.management.exception.ResourceNotFoundException;
+import com.tabcorp.transaction.management.service.AnalyticsService;
 import com.tabcorp.transaction.management.service.impl.TransactionServiceImpl;
 import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @RestController
@@ -23,35 +38,166 @@ import java.util.Map;
 @Slf4j
 public class TransactionAnalyticsController {
 
-    private final TransactionRepository transactionRepository;
     private final TransactionServiceImpl transactionService;
+    private final AnalyticsService analyticsService;
 
     /**
-     * Get total cost of transactions per customer
-     * @return Flux of CustomerTransactionSummaryDTO objects
+     * Get total cost of transactions per customer. The body is the cached, already encoded JSON
+     * array of CustomerTransactionSummaryDTO objects; a request whose If-None-Match holds its ETag
+     * gets 304 Not Modified instead.
+     * @param ifNoneMatch Entity tags of the copies the client holds, if any
+     * @return Mono of the encoded response
      */
     @GetMapping(path = "/customer-totals", produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed(value = "api.customer.totals", description = "Time taken to retrieve customer transaction totals")
-    public Flux<CustomerTransactionSummaryDTO> getTotalCostPerCustomer() {
+    public Mono<ResponseEntity<DataBuffer>> getTotalCostPerCustomer(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Retrieving total cost per customer");
-        return transactionService.getCachedTotalCostPerCustomer()
-            .doOnComplete(() -> log.info("Completed retrieving customer transaction totals"))
+        return transactionService.getEncodedTotalCostPerCustomer()
+            .map(encoded -> toResponse(encoded, ifNoneMatch))
+            .doOnSuccess(response -> log.info("Completed retrieving customer transaction totals"))
             .doOnError(error -> log.error("Error retrieving customer transaction totals: {}", error.getMessage()));
     }
 
     /**
-     * Get total cost of transactions per product
-     * @return Flux of ProductTransactionSummary objects
+     * Get total cost of transactions per product. The body is the cached, already encoded JSON
+     * array of ProductTransactionSummaryDTO objects; a request whose If-None-Match holds its ETag
+     * gets 304 Not Modified instead.
+     * @param ifNoneMatch Entity tags of the copies the client holds, if any
+     * @return Mono of the encoded response
      */
     @GetMapping(path = "/product-totals", produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed(value = "api.product.totals", description = "Time taken to retrieve product transaction totals")
-    public Flux<ProductTransactionSummaryDTO> getTotalCostPerProduct() {
+    public Mono<ResponseEntity<DataBuffer>> getTotalCostPerProduct(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Retrieving total cost per product");
-        return transactionService.getCachedTotalCostPerProduct()
-            .doOnComplete(() -> log.info("Completed retrieving product transaction totals"))
+        return transactionService.getEncodedTotalCostPerProduct()
+            .map(encoded -> toResponse(encoded, ifNoneMatch))
+            .doOnSuccess(response -> log.info("Completed retrieving product transaction totals"))
             .doOnError(error -> log.error("Error retrieving product transaction totals: {}", error.getMessage()));
     }
 
+    /**
+     * Stream total cost of transactions per customer as NDJSON or server-sent events, in customer
+     * id order. Rows are read in bounded pages, at most one ahead of the client, so neither the
+     * time to the first row nor memory grows with the number of customers, and no connection is
+     * held while the client reads. Pass the last
+     * customer id received as after to get the next page.
+     * @param after Keyset cursor: only customers after this id
+     * @param limit Maximum number of rows
+     * @return Flux of CustomerTransactionSummaryDTO objects
+     */
+    @GetMapping(path = "/customer-totals/stream",
+                produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Timed(value = "api.customer.totals.stream", description = "Time taken to stream customer transaction totals")
+    public Flux<CustomerTransactionSummaryDTO> streamTotalCostPerCustomer(@RequestParam(required = false) Integer after,
+                                                                          @RequestParam(required = false) Integer limit) {
+        return transactionService.streamTotalCostPerCustomer(after, limit)
+            .doOnError(error -> log.error("Error streaming customer transaction totals: {}", error.getMessage()));
+    }
+
+    /**
+     * Stream total cost of transactions per product as NDJSON or server-sent events, in product
+     * code order. Pass the last product code received as after to get the next page.
+     * @param after Keyset cursor: only products after this code
+     * @param limit Maximum number of rows
+     * @return Flux of ProductTransactionSummaryDTO objects
+     */
+    @GetMapping(path = "/product-totals/stream",
+                produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Timed(value = "api.product.totals.stream", description = "Time taken to stream product transaction totals")
+    public Flux<ProductTransactionSummaryDTO> streamTotalCostPerProduct(@RequestParam(required = false) String after,
+                                                                        @RequestParam(required = false) Integer limit) {
+        return transactionService.streamTotalCostPerProduct(after, limit)
+            .doOnError(error -> log.error("Error streaming product transaction totals: {}", error.getMessage()));
+    }
+
+    /**
+     * Get total cost of transactions for one customer
+     * @param customerId Customer to look up
+     * @return Mono of the customer's CustomerTransactionSummaryDTO
+     */
+    @GetMapping(path = "/customer-totals/{customerId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.customer.total", description = "Time taken to retrieve one customer's transaction total")
+    public Mono<CustomerTransactionSummaryDTO> getTotalCostForCustomer(@PathVariable Integer customerId) {
+        return transactionService.getCachedCustomerSummary(customerId)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("No transactions for customer " + customerId)));
+    }
+
+    /**
+     * Get total cost of transactions for one product
+     * @param productCode Product to look up
+     * @return Mono of the product's ProductTransactionSummaryDTO
+     */
+    @GetMapping(path = "/product-totals/{productCode}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.product.total", description = "Time taken to retrieve one product's transaction total")
+    public Mono<ProductTransactionSummaryDTO> getTotalCostForProduct(@PathVariable String productCode) {
+        return transactionService.getCachedProductSummary(productCode)
+            .switchIfEmpty(Mono.error(new ResourceNotFoundException("No transactions for product " + productCode)));
+    }
+
+    /**
+     * Get the customers with the highest spend or transaction count, all time or, given from, in a
+     * time window read from the rollups of the given granularity
+     * @param n Number of customers
+     * @param by spend or count
+     * @param from Start of the window (ISO date-time), optional
+     * @param to End of the window (ISO date-time), exclusive; defaults to now
+     * @param granularity minute, hour or day
+     * @return Flux of at most n TopCustomerDTO objects, highest first
+     */
+    @GetMapping(path = "/top-customers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.top.customers", description = "Time taken to rank customers")
+    public Flux<TopCustomerDTO> getTopCustomers(@RequestParam(defaultValue = "10") Integer n,
+                                                @RequestParam(defaultValue = "spend") String by,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                @RequestParam(defaultValue = "minute") String granularity) {
+        return analyticsService.topCustomers(n, by, from, to, granularity)
+            .doOnError(error -> log.error("Error ranking customers by {}: {}", by, error.getMessage()));
+    }
+
+    /**
+     * Get the products with the highest spend or transaction count, all time or, given from, in a
+     * time window read from the rollups of the given granularity
+     * @param n Number of products
+     * @param by spend or count
+     * @param from Start of the window (ISO date-time), optional
+     * @param to End of the window (ISO date-time), exclusive; defaults to now
+     * @param granularity minute, hour or day
+     * @return Flux of at most n TopProductDTO objects, highest first
+     */
+    @GetMapping(path = "/top-products", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.top.products", description = "Time taken to rank products")
+    public Flux<TopProductDTO> getTopProducts(@RequestParam(defaultValue = "10") Integer n,
+                                              @RequestParam(defaultValue = "spend") String by,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                              @RequestParam(defaultValue = "minute") String granularity) {
+        return analyticsService.topProducts(n, by, from, to, granularity)
+            .doOnError(error -> log.error("Error ranking products by {}: {}", by, error.getMessage()));
+    }
+
+    /**
+     * Count transactions matching every given filter, from the in-memory count index; any
+     * combination of filters is answered without a query
+     * @param location Customer location
+     * @param productCode Product code
+     * @param format Payload format, JSON or BSON
+     * @param status Transaction status
+     * @return Map containing the count
+     */
+    @GetMapping(path = "/counts", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.counts", description = "Time taken to count transactions")
+    public Mono<Map<String, Long>> getTransactionCount(@RequestParam(required = false) String location,
+                                                       @RequestParam(required = false) String productCode,
+                                                       @RequestParam(required = false) String format,
+                                                       @RequestParam(required = false) String status) {
+        return analyticsService.count(location, productCode, format, status)
+            .map(count -> Map.of("count", count))
+            .doOnError(error -> log.error("Error counting transactions: {}", error.getMessage()));
+    }
+
     /**
      * Get number of transactions for Australian customers
      * @return Map containing the count
@@ -59,14 +205,49 @@ public class TransactionAnalyticsController {
     @GetMapping(path = "/australia-transactions", produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed(value = "api.australia.transactions", description = "Time taken to retrieve Australian transaction count")
     public Mono<Map<String, Long>> getAustralianTransactionCount() {
-        log.info("Retrieving Australian transaction count");
-        return transactionRepository.getAustralianTransactionCount()
-            .map(count -> {
-                Map<String, Long> result = new HashMap<>();
-                result.put("count", count);
-                return result;
-            })
-            .doOnSuccess(count -> log.info("Australian transaction count: {}", count))
-            .doOnError(error -> log.error("Error retrieving Australian transaction count: {}", error.getMessage()));
+        return getTransactionCount("Australia", null, null, null);
+    }
+
+    /**
+     * Aggregate transactions by the value of a payload attribute
+     * @param attribute Top-level payload field to group by, e.g. payment_method or channel
+     * @param metric total_cost, transaction_count or total_quantity; groups are ordered by it
+     * @return Flux of AttributeGroupDTO objects, one per attribute value
+     */
+    @GetMapping(path = "/group-by", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.group.by", description = "Time taken to aggregate transactions by a payload attribute")
+    public Flux<AttributeGroupDTO> groupBy(@RequestParam String attribute,
+                                           @RequestParam(defaultValue = "total_cost") String metric) {
+        log.info("Aggregating transactions by {} ordered by {}", attribute, metric);
+        return analyticsService.groupBy(attribute, metric)
+            .doOnError(error -> log.error("Error aggregating transactions by {}: {}", attribute, error.getMessage()));
+    }
+
+    /**
+     * Get total cost of transactions per customer and per product in a time window, from the
+     * time-bucketed rollups; the window is rounded out to whole buckets
+     * @param from Start of the window (ISO date-time)
+     * @param to End of the window (ISO date-time), exclusive; defaults to now
+     * @param granularity minute, hour or day
+     * @return Mono of the window's WindowSummaryDTO
+     */
+    @GetMapping(path = "/window", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed(value = "api.window", description = "Time taken to retrieve windowed transaction totals")
+    public Mono<WindowSummaryDTO> getWindow(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestParam(defaultValue = "minute") String granularity) {
+        return analyticsService.window(from, to, granularity)
+            .doOnError(error -> log.error("Error retrieving {} window totals: {}", granularity, error.getMessage()));
+    }
+
+    // Wraps the shared bytes without copying them; the buffer is read-only for the response writer
+    private static ResponseEntity<DataBuffer> toResponse(EncodedResponse encoded, String ifNoneMatch) {
+        if (encoded.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(encoded.eTag()).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(encoded.eTag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(DefaultDataBufferFactory.sharedInstance.wrap(encoded.body()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.tabcorp.transaction.management.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttributeGroupDTO {
+    // Attribute value shared by the group; null for transactions without the attribute
+    private String value;
+    private Long transactionCount;
+    private Long totalQuantity;
+    @JsonIgnore
+    private Long totalCostCents;
+
+    public BigDecimal getTotalCost() {
+        return Money.toAmount(totalCostCents);
+    }
+
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCostCents = Money.toCents(totalCost);
+    }
+}
@@ -0,0 +1,9 @@
+package com.tabcorp.transaction.management.dto;
+
+public record CustomerTotalsRecord(
+   Long customer_id,
+   String first_name,
+   String last_name,
+   Long total_cost_cents,
+   Long transaction_count
+) {}
@@ -1,5 +1,6 @@
 package com.tabcorp.transaction.management.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,17 @@ public class CustomerTransactionSummaryDTO {
     private Integer customerId;
     private String firstName;
     private String lastName;
-    private BigDecimal totalCost;
-}
+    @JsonIgnore
+    private Long totalCostCents;
 
+    /**
+     * Total cost as a decimal amount; the BigDecimal is only built when the DTO is serialized
+     */
+    public BigDecimal getTotalCost() {
+        return Money.toAmount(totalCostCents);
+    }
 
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCostCents = Money.toCents(totalCost);
+    }
+}
@@ -4,5 +4,5 @@ public record CustomerTransactionSummaryRecord(
     Long customer_id,
     String first_name,
     String last_name,
-    Double total_cost
+    Long total_cost_cents
 ) {}
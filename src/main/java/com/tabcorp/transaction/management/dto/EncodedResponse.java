@@ -0,0 +1,32 @@
+package com.tabcorp.transaction.management.dto;
+
+/**
+ * A response body that has already been encoded, with a strong entity tag derived from its content
+ * @param body the encoded body; shared between requests, so it must not be modified
+ * @param eTag the quoted entity tag, equal for equal bodies on every instance
+ */
+public record EncodedResponse(
+    byte[] body,
+    String eTag
+) {
+    /**
+     * Whether an If-None-Match header matches this body, so the client's copy is current
+     * @param ifNoneMatch the header value, or null if absent
+     * @return true if one of the listed tags, compared weakly as for GET requests, is this one
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
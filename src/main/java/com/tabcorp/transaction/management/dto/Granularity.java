@@ -0,0 +1,61 @@
+package com.tabcorp.transaction.management.dto;
+
+import com.tabcorp.transaction.management.exception.InvalidRequestException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes of the cost rollups. The name is stored in the rollup tables and is also the
+ * DATE_TRUNC unit of the bucket.
+ */
+public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Start of the bucket holding a time
+     * @param time Time to place
+     * @return The time truncated to this granularity
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * End of the bucket holding a time, so a window rounded out to it covers the time
+     * @param time Time to place
+     * @return The time itself if it starts a bucket, otherwise the start of the next bucket
+     */
+    public LocalDateTime bucketEnd(LocalDateTime time) {
+        LocalDateTime start = bucketStart(time);
+        return start.equals(time) ? start : start.plus(1, unit);
+    }
+
+    /**
+     * Number of buckets between two bucket boundaries
+     * @param from Start of the first bucket
+     * @param to End of the last bucket
+     * @return The number of buckets
+     */
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).dividedBy(unit.getDuration());
+    }
+
+    public static Granularity of(String name) {
+        for (Granularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(name)) {
+                return granularity;
+            }
+        }
+        throw new InvalidRequestException("Invalid granularity: " + name);
+    }
+}
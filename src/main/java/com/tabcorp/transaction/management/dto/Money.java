@@ -0,0 +1,21 @@
+package com.tabcorp.transaction.management.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between money held as long cents and decimal amounts.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static BigDecimal toAmount(Long cents) {
+        return cents == null ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    public static Long toCents(BigDecimal amount) {
+        return amount == null ? null : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
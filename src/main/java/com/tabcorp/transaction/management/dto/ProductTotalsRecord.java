@@ -0,0 +1,8 @@
+package com.tabcorp.transaction.management.dto;
+
+public record ProductTotalsRecord(
+   String product_code,
+   String status,
+   Long total_cost_cents,
+   Long transaction_count
+) {}
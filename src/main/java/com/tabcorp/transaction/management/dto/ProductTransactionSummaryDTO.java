@@ -1,5 +1,6 @@
 package com.tabcorp.transaction.management.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,17 @@ import java.math.BigDecimal;
 public class ProductTransactionSummaryDTO {
     private String productCode;
     private String status;
-    private BigDecimal totalCost;
-}
+    @JsonIgnore
+    private Long totalCostCents;
 
+    /**
+     * Total cost as a decimal amount; the BigDecimal is only built when the DTO is serialized
+     */
+    public BigDecimal getTotalCost() {
+        return Money.toAmount(totalCostCents);
+    }
 
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCostCents = Money.toCents(totalCost);
+    }
+}
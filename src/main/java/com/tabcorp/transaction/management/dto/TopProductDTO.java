@@ -0,0 +1,27 @@
+package com.tabcorp.transaction.management.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopProductDTO {
+    private String productCode;
+    private String status;
+    private Long transactionCount;
+    @JsonIgnore
+    private Long totalCostCents;
+
+    public BigDecimal getTotalCost() {
+        return Money.toAmount(totalCostCents);
+    }
+
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCostCents = Money.toCents(totalCost);
+    }
+}
@@ -0,0 +1,9 @@
+package com.tabcorp.transaction.management.dto;
+
+public record TransactionDimensionsRecord(
+   Long id,
+   String location,
+   String product_code,
+   String data_format,
+   String status
+) {}
@@ -0,0 +1,25 @@
+package com.tabcorp.transaction.management.dto;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+
+/**
+ * Outcome of validating one transaction of a batch
+ * @param transaction the validated transaction
+ * @param error the validation error, or null if the transaction is valid
+ */
+public record TransactionValidationResult(
+    Transaction transaction,
+    String error
+) {
+    public static TransactionValidationResult valid(Transaction transaction) {
+        return new TransactionValidationResult(transaction, null);
+    }
+
+    public static TransactionValidationResult invalid(Transaction transaction, String error) {
+        return new TransactionValidationResult(transaction, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tabcorp.transaction.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowSummaryDTO {
+    // Window actually covered: the requested one rounded out to whole buckets, end exclusive
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Granularity granularity;
+    private List<CustomerTransactionSummaryDTO> customers;
+    private List<ProductTransactionSummaryDTO> products;
+}
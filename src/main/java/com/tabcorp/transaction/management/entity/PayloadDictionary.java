@@ -0,0 +1,34 @@
+package com.tabcorp.transaction.management.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Table("payload_dictionary")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayloadDictionary {
+
+    @Id
+    private Integer id;
+
+    @Column("codec")
+    private String codec;
+
+    @Column("dictionary")
+    private byte[] dictionary;
+
+    @Column("sample_count")
+    private Integer sampleCount;
+
+    @Column("created_time")
+    private LocalDateTime createdTime;
+}
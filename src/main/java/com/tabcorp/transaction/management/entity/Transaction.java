@@ -1,10 +1,12 @@
 package com.tabcorp.transaction.management.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tabcorp.transaction.management.payload.TransactionPayload;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import lombok.EqualsAndHashCode;
 import org.bson.BsonBinaryWriter;
 import org.bson.Document;
 import org.bson.codecs.BsonValueCodecProvider;
@@ -17,6 +19,8 @@ import org.bson.io.BasicOutputBuffer;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
@@ -46,6 +50,10 @@ public class Transaction {
     @Column("quantity")
     private Integer quantity;
 
+    // Unit cost of the product in cents when the transaction was validated; totals are priced with it
+    @Column("unit_cost_cents")
+    private Long unitCostCents;
+
     @Column("data_format")
     private String dataFormat;
 
@@ -55,6 +63,31 @@ public class Transaction {
     @Column("bson_data")
     private byte[] bsonData;
 
+    // How the stored payload bytes are encoded: JSON (UTF-8 text) or BSON (binary document)
+    @Column("payload_encoding")
+    private String payloadEncoding;
+
+    // Set only on rows read with a compressed payload, until PayloadCompressor restores it
+    @Column("payload_codec")
+    private String payloadCodec;
+
+    @Column("payload_dictionary_id")
+    private Integer payloadDictionaryId;
+
+    // Promoted from the payload at ingest, see PayloadAttributePromoter
+    @Column("currency")
+    private String currency;
+
+    @Column("payment_method")
+    private String paymentMethod;
+
+    @Column("channel")
+    private String channel;
+
+    // PayloadAttributePromoter fingerprint of the paths the promoted columns were read with; null until read
+    @Column("promoted_paths")
+    private Integer promotedPaths;
+
     @Column("processed_time")
     private LocalDateTime processedTime;
 
@@ -67,60 +100,61 @@ public class Transaction {
             new ValueCodecProvider(),
             new BsonValueCodecProvider()
     );
+
+    private static final DocumentCodec documentCodec = new DocumentCodec(codecRegistry);
+
+    // Payload view, built on first use and dropped whenever the payload or its encoding changes
     @Transient
-    public Map<String, Object> getDataAsMap() {
-        String data = null;
-        
-        // Determine which data field to use based on format
-        if (isJsonFormat() && jsonData != null && !jsonData.isEmpty()) {
-            data = jsonData;
-            
-            try {
-                return objectMapper.readValue(data, Map.class);
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Failed to parse JSON data: " + e.getMessage(), e);
-            }
-        } else if (isBsonFormat() && bsonData != null && bsonData.length > 0) {
-            try {
-                // First, check if we're dealing with a BINARY: prefix from the custom converter
-                String bsonString = new String(bsonData, StandardCharsets.UTF_8);
-                if (bsonString.startsWith("BINARY:")) {
-                    // This is Base64 encoded binary data, decode it first
-                    String base64Data = bsonString.substring("BINARY:".length());
-                    bsonData = Base64.getDecoder().decode(base64Data);
-                }
-                
-                // Try to parse as a JSON string first (for backward compatibility)
-                try {
-                    Document document = Document.parse(new String(bsonData, StandardCharsets.UTF_8));
-                    if (document != null) {
-                        return document;
-                    }
-                } catch (Exception jsonParseException) {
-                    // Not valid JSON, continue to binary BSON handling
-                }
-                
-                // Handle as true binary BSON data
-                org.bson.BsonBinaryReader reader = new org.bson.BsonBinaryReader(
-                        java.nio.ByteBuffer.wrap(bsonData));
-                org.bson.codecs.DecoderContext decoderContext = org.bson.codecs.DecoderContext.builder().build();
-                DocumentCodec documentCodec = new DocumentCodec(codecRegistry);
-                Document document = documentCodec.decode(reader, decoderContext);
-                reader.close();
-                return document;
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse BSON data: " + e.getMessage(), e);
-            }
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient TransactionPayload payload;
+
+    /**
+     * Typed, lazily decoded view of the payload. Reading one field does not decode the whole document.
+     * @return the payload view, or null if the transaction has no payload
+     */
+    @Transient
+    @JsonIgnore
+    public TransactionPayload getPayload() {
+        if (payload == null) {
+            payload = TransactionPayload.of(payloadEncoding, jsonData, bsonData);
         }
-        
-        return null;
+        return payload;
+    }
+
+    public void setPayloadEncoding(String payloadEncoding) {
+        this.payloadEncoding = payloadEncoding;
+        this.payload = null;
+    }
+
+    public void setJsonData(String jsonData) {
+        this.jsonData = jsonData;
+        this.payload = null;
+    }
+
+    public void setBsonData(byte[] bsonData) {
+        this.bsonData = bsonData;
+        this.payload = null;
+    }
+
+    /**
+     * The whole payload as a map. Prefer {@link #getPayload()} to read individual fields.
+     */
+    @Transient
+    public Map<String, Object> getDataAsMap() {
+        TransactionPayload view = getPayload();
+        return view != null ? view.toMap() : null;
     }
     
     @Transient
     public void setDataAsMap(Map<String, Object> dataMap) {
+        this.payload = null;
         if (dataMap == null) {
             this.jsonData = null;
             this.bsonData = null;
+            this.payloadEncoding = null;
             return;
         }
         
@@ -129,6 +163,7 @@ public class Transaction {
             if (isJsonFormat()) {
                 this.jsonData = objectMapper.writeValueAsString(dataMap);
                 this.bsonData = null;
+                this.payloadEncoding = "JSON";
             } else if (isBsonFormat()) {
                 // Create a Document from the Map
                 Document document = new Document(dataMap);
@@ -138,17 +173,18 @@ public class Transaction {
                 BsonBinaryWriter writer = new BsonBinaryWriter(buffer);
                 
                 // Use the DocumentCodec to write the document to the writer
-                DocumentCodec codec = new DocumentCodec(codecRegistry);
-                codec.encode(writer, document, EncoderContext.builder().build());
+                documentCodec.encode(writer, document, EncoderContext.builder().build());
                 
                 this.bsonData = buffer.toByteArray();
                 writer.close();
                 this.jsonData = null;
+                this.payloadEncoding = "BSON";
             } else {
                 // Default to JSON if no format specified
                 this.dataFormat = "JSON";
                 this.jsonData = objectMapper.writeValueAsString(dataMap);
                 this.bsonData = null;
+                this.payloadEncoding = "JSON";
             }
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize data map: " + e.getMessage(), e);
@@ -0,0 +1,8 @@
+package com.tabcorp.transaction.management.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,247 @@
+package com.tabcorp.transaction.management.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Flow control for the Kafka batch listeners.
+ *
+ * Tracks the number of records in flight per partition, pauses a partition once it reaches
+ * its limit and resumes it when the backlog has drained below half of that limit. A batch is
+ * acknowledged only after it, and every earlier batch that shares a partition with it, has been
+ * persisted, so committed offsets never run ahead of the database.
+ *
+ * When a batch fails to persist, neither it nor any later batch on its partitions is acknowledged.
+ * Those partitions are rewound to the offset after their last acknowledged batch, so the failed
+ * records are delivered again. The first batch that comes back after a rewind starts a new chain of
+ * acknowledgments. Delivery is at least once: later batches that did persist are stored again when
+ * they are redelivered.
+ *
+ * Registered as the rebalance listener of the listener containers. When a partition is revoked or
+ * lost its state is dropped and any pause this class requested is lifted, so a partition assigned
+ * again later starts unpaused with nothing in flight. Batches still persisting from before the
+ * rebalance release their records against the dropped state and no longer pause or resume the partition.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IngestionFlowControl implements ConsumerAwareRebalanceListener {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kafka.consumer.max-in-flight-per-partition:500}")
+    private int maxInFlightPerPartition;
+
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong totalInFlight = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("transaction.ingestion.in-flight", totalInFlight);
+    }
+
+    /**
+     * Dispatch a polled batch. Must be called on the consumer thread that received the batch.
+     * @param listenerId id of the listener container that polled the batch
+     * @param records records of the batch
+     * @param acknowledgment acknowledgment for the batch, called once the batch is persisted
+     * @param persistence pipeline persisting the batch; subscribed by this method. It must only
+     *                    complete once every record is either stored or rejected as invalid
+     * @param rewind seeks a partition of the listener back to an offset; may be called from any thread
+     */
+    public void dispatch(String listenerId, List<? extends ConsumerRecord<?, ?>> records,
+                         Acknowledgment acknowledgment, Mono<?> persistence, BiConsumer<TopicPartition, Long> rewind) {
+        Map<TopicPartition, Span> spans = spanPerPartition(records);
+        CompletableFuture<Void> persisted = new CompletableFuture<>();
+        CompletableFuture<?>[] barrier = new CompletableFuture<?>[spans.size() + 1];
+        barrier[0] = persisted;
+
+        // States are resolved once, so a batch releases against the state it acquired even if
+        // a rebalance or a rewind replaces it in the meantime
+        Map<TopicPartition, PartitionState> states = new LinkedHashMap<>();
+        int index = 1;
+        for (Map.Entry<TopicPartition, Span> entry : spans.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            Span span = entry.getValue();
+            PartitionState state = partitions.computeIfAbsent(partition, tp -> new PartitionState(span.first));
+            if (state.rewoundTo >= 0 && span.first <= state.highestOffset) {
+                // Redelivered after a rewind: the broken chain is left behind and a new one starts here
+                retire(partition, partitions.remove(partition));
+                state = new PartitionState(span.first);
+                partitions.put(partition, state);
+            }
+            state.highestOffset = Math.max(state.highestOffset, span.last);
+            states.put(partition, state);
+            barrier[index++] = state.tail;
+            acquire(listenerId, partition, state, span.count);
+        }
+
+        // Offsets of this batch may only be committed after every earlier batch on the same partitions
+        CompletableFuture<Void> committable = CompletableFuture.allOf(barrier);
+        states.values().forEach(state -> state.tail = committable);
+
+        committable.whenComplete((ignored, error) -> {
+            if (error != null) {
+                // This batch, or an earlier one on one of its partitions, was not persisted
+                states.forEach((partition, state) -> rewind(partition, state, rewind));
+                return;
+            }
+            states.forEach((partition, state) ->
+                state.committedTo = Math.max(state.committedTo, spans.get(partition).last + 1));
+            acknowledgment.acknowledge();
+            log.debug("Acknowledged batch of {} records for {}", records.size(), spans.keySet());
+        });
+
+        persistence
+            .doFinally(signalType -> spans.forEach((tp, span) -> release(listenerId, tp, states.get(tp), span.count)))
+            .subscribe(
+                ignored -> { },
+                error -> {
+                    log.error("Persistence failed for batch on {}: {}", spans.keySet(), error.getMessage(), error);
+                    persisted.completeExceptionally(error);
+                },
+                () -> persisted.complete(null)
+            );
+    }
+
+    private void rewind(TopicPartition partition, PartitionState state, BiConsumer<TopicPartition, Long> rewind) {
+        long offset;
+        synchronized (state) {
+            // A partition is rewound once per chain; its later failed batches are redelivered by the same seek
+            if (state.revoked || state.rewoundTo >= 0) {
+                return;
+            }
+            offset = state.committedTo;
+            state.rewoundTo = offset;
+        }
+        rewind.accept(partition, offset);
+        meterRegistry.counter("transaction.ingestion.rewound", "partition", partition.toString()).increment();
+        log.warn("Rewound {} to offset {}, the records from there on were not all persisted", partition, offset);
+    }
+
+    private void acquire(String listenerId, TopicPartition partition, PartitionState state, int count) {
+        totalInFlight.addAndGet(count);
+        synchronized (state) {
+            long inFlight = state.inFlight.addAndGet(count);
+            if (inFlight >= maxInFlightPerPartition && !state.paused && !state.revoked) {
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+                if (container != null) {
+                    container.pausePartition(partition);
+                    state.paused = true;
+                    state.pausedBy = listenerId;
+                    meterRegistry.counter("transaction.ingestion.paused", "partition", partition.toString()).increment();
+                    log.info("Paused {} with {} records in flight", partition, inFlight);
+                }
+            }
+        }
+    }
+
+    private void release(String listenerId, TopicPartition partition, PartitionState state, int count) {
+        totalInFlight.addAndGet(-count);
+        synchronized (state) {
+            long inFlight = state.inFlight.addAndGet(-count);
+            if (state.paused && !state.revoked && inFlight <= maxInFlightPerPartition / 2) {
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+                if (container != null) {
+                    container.resumePartition(partition);
+                    state.paused = false;
+                    log.info("Resumed {} with {} records in flight", partition, inFlight);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        revoked.forEach(this::reset);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        lost.forEach(this::reset);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        // A partition can come back without a revoke having been seen, e.g. after a lost consumer
+        assigned.forEach(this::reset);
+    }
+
+    private void reset(TopicPartition partition) {
+        retire(partition, partitions.remove(partition));
+    }
+
+    private void retire(TopicPartition partition, PartitionState state) {
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.revoked = true;
+            if (state.paused) {
+                // The container keeps requested pauses across rebalances, so lift it here
+                MessageListenerContainer container = listenerRegistry.getListenerContainer(state.pausedBy);
+                if (container != null) {
+                    container.resumePartition(partition);
+                }
+                state.paused = false;
+                log.info("Cleared pause of {}", partition);
+            }
+        }
+    }
+
+    private Map<TopicPartition, Span> spanPerPartition(List<? extends ConsumerRecord<?, ?>> records) {
+        Map<TopicPartition, Span> spans = new LinkedHashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            Span span = spans.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), tp -> new Span());
+            span.count++;
+            span.first = Math.min(span.first, record.offset());
+            span.last = Math.max(span.last, record.offset());
+        }
+        return spans;
+    }
+
+    // Records of a batch on one partition
+    private static class Span {
+        private int count;
+        private long first = Long.MAX_VALUE;
+        private long last = -1;
+    }
+
+    private static class PartitionState {
+        private final AtomicLong inFlight = new AtomicLong();
+        // Offset after the last acknowledged batch, or the first offset of the chain
+        private volatile long committedTo;
+        private volatile long highestOffset = -1;
+        private volatile long rewoundTo = -1;
+        private volatile boolean paused;
+        private volatile String pausedBy;
+        private volatile boolean revoked;
+        private volatile CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        private PartitionState(long firstOffset) {
+            this.committedTo = firstOffset;
+        }
+    }
+}
@@ -7,10 +7,13 @@ import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
 import java.util.List;
@@ -19,11 +22,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class TransactionListener {
+public class TransactionListener extends AbstractConsumerSeekAware {
+
+    public static final String JSON_LISTENER_ID = "jsonTransactionsListener";
+    public static final String BSON_LISTENER_ID = "bsonTransactionsListener";
 
     private final TransactionService transactionService;
+    private final IngestionFlowControl flowControl;
     private final MeterRegistry meterRegistry;
-    
+
     private Timer jsonProcessingTimer;
     private Timer bsonProcessingTimer;
 
@@ -41,80 +48,98 @@ public class TransactionListener {
     }
 
     @KafkaListener(
+        id = JSON_LISTENER_ID,
         topics = "${kafka.topic.json-transactions}",
         groupId = "${kafka.group.json-transactions}",
         containerFactory = "jsonKafkaListenerContainerFactory"
     )
-    public void consumeJsonTransactions(List<ConsumerRecord<String, Transaction>> records) {
+    public void consumeJsonTransactions(List<ConsumerRecord<String, Transaction>> records, Acknowledgment acknowledgment) {
         AtomicInteger batchSize = new AtomicInteger(records.size());
         log.info("Received batch of {} JSON transactions", batchSize.get());
         
         Timer.Sample timer = Timer.start();
         
-        Flux.fromIterable(records)
-            .map(ConsumerRecord::value)
+        Mono<Void> persistence = Flux.fromIterable(records)
+            // A record whose value could not be deserialized carries no transaction
+            .mapNotNull(ConsumerRecord::value)
             .map(transaction -> {
                 transaction.setDataFormat("JSON");
                 return transaction;
             })
-            .buffer(100)
-            .parallel(3)
-            .runOn(Schedulers.boundedElastic())
+            // The whole poll goes to the service in one call; it shards it onto customer lanes
+            .collectList()
             .flatMap(batch -> {
-                log.debug("Processing sub-batch of {} JSON transactions", batch.size());
+                log.debug("Processing batch of {} JSON transactions", batch.size());
+                // Failures are retried per lane by the service; retrying here would re-submit the whole poll
                 return transactionService.processJsonTransactions(batch)
+                    // The error reaches the flow control, which leaves the batch unacknowledged
                     .doOnError(error -> {
                         log.error("Error processing JSON batch: {}", error.getMessage(), error);
                         meterRegistry.counter("transaction.errors", "format", "json").increment();
                     });
             })
-            .sequential()
-            .doOnComplete(() -> {
+            .doOnSuccess(processed -> {
                 timer.stop(jsonProcessingTimer);
                 log.info("Completed processing {} JSON transactions", batchSize.get());
                 meterRegistry.counter("transaction.processed", "format", "json")
                     .increment(batchSize.get());
             })
-            .subscribe();
+            .then();
+
+        flowControl.dispatch(JSON_LISTENER_ID, records, acknowledgment, persistence, this::rewind);
     }
 
 
     @KafkaListener(
+        id = BSON_LISTENER_ID,
         topics = "${kafka.topic.bson-transactions}",
         groupId = "${kafka.group.bson-transactions}",
         containerFactory = "bsonKafkaListenerContainerFactory"
     )
-    public void consumeBsonTransactions(List<ConsumerRecord<String, Transaction>> records) {
+    public void consumeBsonTransactions(List<ConsumerRecord<String, Transaction>> records, Acknowledgment acknowledgment) {
         AtomicInteger batchSize = new AtomicInteger(records.size());
         log.info("Received batch of {} BSON transactions", batchSize.get());
 
         Timer.Sample timer = Timer.start();
 
-        Flux.fromIterable(records)
-            .map(ConsumerRecord::value)
+        Mono<Void> persistence = Flux.fromIterable(records)
+            // A record whose value could not be deserialized carries no transaction
+            .mapNotNull(ConsumerRecord::value)
             .map(transaction -> {
                 transaction.setDataFormat("BSON");
                 return transaction;
             })
-            .buffer(100)
-            .parallel(3)
-            .runOn(Schedulers.boundedElastic())
+            // The whole poll goes to the service in one call; it shards it onto customer lanes
+            .collectList()
             .flatMap(batch -> {
-                log.debug("Processing sub-batch of {} BSON transactions", batch.size());
+                log.debug("Processing batch of {} BSON transactions", batch.size());
+                // Failures are retried per lane by the service; retrying here would re-submit the whole poll
                 return transactionService.processBsonTransactions(batch)
+                    // The error reaches the flow control, which leaves the batch unacknowledged
                     .doOnError(error -> {
                         log.error("Error processing BSON batch: {}", error.getMessage(), error);
                         meterRegistry.counter("transaction.errors", "format", "bson").increment();
                     });
             })
-            .sequential()
-            .doOnComplete(() -> {
+            .doOnSuccess(processed -> {
                 timer.stop(bsonProcessingTimer);
                 log.info("Completed processing {} BSON transactions", batchSize.get());
                 meterRegistry.counter("transaction.processed", "format", "bson")
                     .increment(batchSize.get());
             })
-            .subscribe();
+            .then();
+
+        flowControl.dispatch(BSON_LISTENER_ID, records, acknowledgment, persistence, this::rewind);
+    }
+
+    // The container queues seeks from other threads and performs them before its next poll
+    private void rewind(TopicPartition partition, long offset) {
+        List<ConsumerSeekCallback> callbacks = getSeekCallbacksFor(partition);
+        if (callbacks == null || callbacks.isEmpty()) {
+            log.warn("Cannot rewind {} to offset {}, it is no longer assigned", partition, offset);
+            return;
+        }
+        callbacks.forEach(callback -> callback.seek(partition.topic(), partition.partition(), offset));
     }
 
 }
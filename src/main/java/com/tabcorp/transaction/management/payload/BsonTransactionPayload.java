@@ -0,0 +1,79 @@
+package com.tabcorp.transaction.management.payload;
+
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.util.Map;
+
+/**
+ * BSON payload read in place; the stored bytes are wrapped, never copied or decoded up front.
+ */
+final class BsonTransactionPayload implements TransactionPayload {
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    private final RawBsonDocument document;
+
+    BsonTransactionPayload(byte[] bytes) {
+        this.document = new RawBsonDocument(bytes);
+    }
+
+    @Override
+    public boolean contains(String field) {
+        return value(field) != null;
+    }
+
+    @Override
+    public String getString(String field) {
+        BsonValue value = value(field);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    @Override
+    public Double getDouble(String field) {
+        BsonValue value = value(field);
+        return value != null && value.isNumber() ? value.asNumber().doubleValue() : null;
+    }
+
+    @Override
+    public Number getNumber(String field) {
+        BsonValue value = value(field);
+        if (value == null) {
+            return null;
+        }
+        return switch (value.getBsonType()) {
+            case INT32 -> value.asInt32().getValue();
+            case INT64 -> value.asInt64().getValue();
+            case DOUBLE -> value.asDouble().getValue();
+            case DECIMAL128 -> value.asDecimal128().getValue().bigDecimalValue();
+            default -> null;
+        };
+    }
+
+    @Override
+    public Boolean getBoolean(String field) {
+        BsonValue value = value(field);
+        return value != null && value.isBoolean() ? value.asBoolean().getValue() : null;
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        return document.decode(DOCUMENT_CODEC);
+    }
+
+    // Nested documents of a RawBsonDocument are views over the same bytes, so a dotted path is read in place too
+    private BsonValue value(String field) {
+        if (field.indexOf('.') < 0) {
+            return document.get(field);
+        }
+        BsonValue current = document;
+        for (String name : field.split("\\.")) {
+            if (current == null || !current.isDocument()) {
+                return null;
+            }
+            current = current.asDocument().get(name);
+        }
+        return current;
+    }
+}
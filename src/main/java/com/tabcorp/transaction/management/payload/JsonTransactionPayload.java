@@ -0,0 +1,121 @@
+package com.tabcorp.transaction.management.payload;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON payload scanned on demand. A lookup walks the fields with a streaming parser, entering only
+ * the objects on a dotted path and skipping every other nested value without building it, and
+ * remembers the value it found so each field is scanned for at most once.
+ */
+final class JsonTransactionPayload implements TransactionPayload {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    // Scan results that carry no scalar value: the field is missing, or it is null or structured
+    private static final Object ABSENT = new Object();
+    private static final Object NO_SCALAR = new Object();
+
+    private final String text;
+    private final byte[] bytes;
+    private final Map<String, Object> scanned = new HashMap<>(4);
+
+    JsonTransactionPayload(String text) {
+        this.text = text;
+        this.bytes = null;
+    }
+
+    JsonTransactionPayload(byte[] bytes) {
+        this.text = null;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public boolean contains(String field) {
+        return lookup(field) != ABSENT;
+    }
+
+    @Override
+    public String getString(String field) {
+        return lookup(field) instanceof String value ? value : null;
+    }
+
+    @Override
+    public Double getDouble(String field) {
+        return lookup(field) instanceof Number value ? value.doubleValue() : null;
+    }
+
+    @Override
+    public Number getNumber(String field) {
+        return lookup(field) instanceof Number value ? value : null;
+    }
+
+    @Override
+    public Boolean getBoolean(String field) {
+        return lookup(field) instanceof Boolean value ? value : null;
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        try {
+            return text != null ? OBJECT_MAPPER.readValue(text, MAP_TYPE) : OBJECT_MAPPER.readValue(bytes, MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse JSON payload: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized Object lookup(String field) {
+        Object value = scanned.get(field);
+        if (value == null) {
+            value = scan(field);
+            scanned.put(field, value);
+        }
+        return value;
+    }
+
+    private Object scan(String field) {
+        String[] path = field.indexOf('.') < 0 ? new String[] {field} : field.split("\\.");
+        try (JsonParser parser = text != null ? JSON_FACTORY.createParser(text) : JSON_FACTORY.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return ABSENT;
+            }
+            int depth = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean match = path[depth].equals(parser.currentName());
+                JsonToken token = parser.nextToken();
+                if (!match) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (depth < path.length - 1) {
+                    if (token != JsonToken.START_OBJECT) {
+                        return ABSENT;
+                    }
+                    // Continue with the fields of the nested object
+                    depth++;
+                    continue;
+                }
+                return switch (token) {
+                    case VALUE_STRING -> parser.getText();
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+                    case VALUE_TRUE -> Boolean.TRUE;
+                    case VALUE_FALSE -> Boolean.FALSE;
+                    default -> NO_SCALAR;
+                };
+            }
+            return ABSENT;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse JSON payload: " + e.getMessage(), e);
+        }
+    }
+}
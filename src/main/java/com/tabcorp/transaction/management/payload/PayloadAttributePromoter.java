@@ -0,0 +1,77 @@
+package com.tabcorp.transaction.management.payload;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Copies frequently filtered payload attributes into their own indexed columns.
+ *
+ * Each promoted column is filled from the first of its configured payload paths that holds a
+ * non-empty string; nested fields are addressed with dotted paths such as {@code metadata.channel}
+ * and read from the payload in place.
+ * Values too long for their column are left out rather than truncated, so a filter on the column
+ * never matches a value the payload does not hold.
+ * A promoted transaction is marked with a fingerprint of the configured paths, so the backfill only
+ * reads again the rows promoted before the paths changed.
+ */
+@Component
+public class PayloadAttributePromoter {
+
+    // Column sizes from V5__promoted_payload_attributes.sql
+    private static final int CURRENCY_LENGTH = 10;
+    private static final int PAYMENT_METHOD_LENGTH = 50;
+    private static final int CHANNEL_LENGTH = 50;
+
+    private final List<String> currencyPaths;
+    private final List<String> paymentMethodPaths;
+    private final List<String> channelPaths;
+    private final int fingerprint;
+
+    public PayloadAttributePromoter(@Value("${transaction.attribute-promotion.currency:currency}") List<String> currencyPaths,
+                                    @Value("${transaction.attribute-promotion.payment-method:payment_method}") List<String> paymentMethodPaths,
+                                    @Value("${transaction.attribute-promotion.channel:channel}") List<String> channelPaths) {
+        this.currencyPaths = currencyPaths;
+        this.paymentMethodPaths = paymentMethodPaths;
+        this.channelPaths = channelPaths;
+        this.fingerprint = Objects.hash(currencyPaths, paymentMethodPaths, channelPaths);
+    }
+
+    /**
+     * @return Fingerprint of the configured paths, stable across restarts while they are unchanged
+     */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Fill the promoted columns of a transaction from its payload, and mark it with the fingerprint
+     * @param transaction Transaction to update
+     * @return true if any promoted column was set
+     */
+    public boolean promote(Transaction transaction) {
+        TransactionPayload payload = transaction.getPayload();
+        if (payload == null) {
+            transaction.setPromotedPaths(fingerprint);
+            return false;
+        }
+        transaction.setCurrency(read(payload, currencyPaths, CURRENCY_LENGTH));
+        transaction.setPaymentMethod(read(payload, paymentMethodPaths, PAYMENT_METHOD_LENGTH));
+        transaction.setChannel(read(payload, channelPaths, CHANNEL_LENGTH));
+        transaction.setPromotedPaths(fingerprint);
+        return transaction.getCurrency() != null || transaction.getPaymentMethod() != null || transaction.getChannel() != null;
+    }
+
+    private static String read(TransactionPayload payload, List<String> paths, int maxLength) {
+        for (String path : paths) {
+            String value = payload.getString(path);
+            if (value != null && !value.isEmpty()) {
+                return value.length() <= maxLength ? value : null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,287 @@
+package com.tabcorp.transaction.management.payload;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.tabcorp.transaction.management.entity.PayloadDictionary;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.repository.PayloadDictionaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional zstd compression of stored transaction payloads.
+ *
+ * When {@code transaction.payload-compression.enabled} is set, payloads are compressed as they are
+ * written, using the latest dictionary trained from a sample of stored payloads (or no dictionary
+ * until one has been trained). Each row records its codec and dictionary id, and rows are
+ * decompressed as they are read, so entities only ever hold the original payload. Dictionaries are
+ * kept forever, so rows written with an older one can still be read; reading works whether or not
+ * compression is enabled.
+ */
+@Component
+@Slf4j
+public class PayloadCompressor implements SmartLifecycle {
+
+    public static final String ZSTD = "ZSTD";
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(1);
+
+    // Recent rows whatever their codec, so a retrained dictionary follows current traffic
+    private static final String SAMPLE_PAYLOADS =
+            "SELECT json_data, bson_data, payload_encoding, payload_codec, payload_dictionary_id FROM customer_transaction " +
+            "WHERE json_data IS NOT NULL OR bson_data IS NOT NULL ORDER BY id DESC LIMIT :limit";
+
+    private final PayloadDictionaryRepository dictionaryRepository;
+    private final DatabaseClient databaseClient;
+    private final boolean enabled;
+    private final int level;
+    private final int minSize;
+    private final int dictionarySize;
+    private final int sampleSize;
+    private final int minSamples;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    private final Map<Integer, ZstdDictDecompress> decompressors = new ConcurrentHashMap<>();
+    // Dictionary used for new writes; id is null until a dictionary has been trained
+    private volatile WriteDictionary writeDictionary = new WriteDictionary(null, null);
+    private volatile boolean running;
+
+    public PayloadCompressor(PayloadDictionaryRepository dictionaryRepository,
+                             DatabaseClient databaseClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${transaction.payload-compression.enabled:false}") boolean enabled,
+                             @Value("${transaction.payload-compression.level:3}") int level,
+                             @Value("${transaction.payload-compression.min-size:64}") int minSize,
+                             @Value("${transaction.payload-compression.dictionary-size:16384}") int dictionarySize,
+                             @Value("${transaction.payload-compression.sample-size:1000}") int sampleSize,
+                             @Value("${transaction.payload-compression.min-samples:100}") int minSamples) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.databaseClient = databaseClient;
+        this.enabled = enabled;
+        this.level = level;
+        this.minSize = minSize;
+        this.dictionarySize = dictionarySize;
+        this.sampleSize = sampleSize;
+        this.minSamples = minSamples;
+        this.rawBytes = meterRegistry.counter("transaction.payload.compression.bytes", "form", "raw");
+        this.storedBytes = meterRegistry.counter("transaction.payload.compression.bytes", "form", "compressed");
+    }
+
+    @Override
+    public void start() {
+        dictionaryRepository.findAll()
+            .doOnNext(this::register)
+            .then(Mono.defer(() -> enabled && writeDictionary.id() == null ? trainDictionary() : Mono.empty()))
+            .onErrorResume(error -> {
+                log.warn("Failed to prepare payload dictionaries: {}", error.getMessage());
+                return Mono.empty();
+            })
+            .block(STARTUP_TIMEOUT);
+        running = true;
+        log.info("Payload compression {}, {} dictionaries loaded, writing with dictionary {}",
+            enabled ? "enabled" : "disabled", decompressors.size(), writeDictionary.id());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the Kafka listener containers (Integer.MAX_VALUE - 100) start writing rows
+        return Integer.MAX_VALUE - 200;
+    }
+
+    /**
+     * Compress the payload of a transaction for storage
+     * @param transaction Transaction about to be written
+     * @return the compressed payload, or null if it should be stored as it is
+     */
+    public CompressedPayload compress(Transaction transaction) {
+        if (!enabled) {
+            return null;
+        }
+        boolean json = transaction.getJsonData() != null;
+        byte[] raw = json ? transaction.getJsonData().getBytes(StandardCharsets.UTF_8) : transaction.getBsonData();
+        if (raw == null || raw.length < minSize) {
+            return null;
+        }
+
+        WriteDictionary dictionary = writeDictionary;
+        byte[] compressed = dictionary.compressor() == null
+            ? Zstd.compress(raw, level)
+            : Zstd.compress(raw, dictionary.compressor());
+        if (compressed.length >= raw.length) {
+            return null;
+        }
+        rawBytes.increment(raw.length);
+        storedBytes.increment(compressed.length);
+        return new CompressedPayload(json ? "JSON" : transaction.getPayloadEncoding(), ZSTD, dictionary.id(), compressed);
+    }
+
+    /**
+     * Restore the original payload of a transaction read from the database
+     * @param transaction Transaction as read, possibly holding a compressed payload
+     * @return Mono of the same transaction, with its payload decompressed
+     */
+    public Mono<Transaction> decompress(Transaction transaction) {
+        if (transaction.getPayloadCodec() == null || transaction.getBsonData() == null) {
+            return Mono.just(transaction);
+        }
+        if (!ZSTD.equals(transaction.getPayloadCodec())) {
+            return Mono.error(new IllegalStateException("Unsupported payload codec: " + transaction.getPayloadCodec()));
+        }
+        Integer dictionaryId = transaction.getPayloadDictionaryId();
+        if (dictionaryId == null) {
+            return Mono.fromCallable(() -> restore(transaction, null));
+        }
+        return Mono.justOrEmpty(decompressors.get(dictionaryId))
+            .switchIfEmpty(Mono.defer(() -> dictionaryRepository.findById(dictionaryId)
+                .map(this::register)
+                .switchIfEmpty(Mono.error(new IllegalStateException("Unknown payload dictionary: " + dictionaryId)))))
+            .map(decompressor -> restore(transaction, decompressor));
+    }
+
+    /**
+     * Train a dictionary from the most recently stored payloads and use it for new writes. Compressed
+     * payloads are restored with the dictionary that wrote them, so they are sampled like the rest.
+     * @return Mono of the new dictionary id, or empty if there were too few payloads to train on
+     */
+    public Mono<Integer> trainDictionary() {
+        return databaseClient.sql(SAMPLE_PAYLOADS)
+            .bind("limit", sampleSize)
+            .map(row -> {
+                Transaction stored = new Transaction();
+                stored.setJsonData(row.get("json_data", String.class));
+                stored.setBsonData(toBytes(row.get("bson_data")));
+                stored.setPayloadEncoding(row.get("payload_encoding", String.class));
+                stored.setPayloadCodec(row.get("payload_codec", String.class));
+                stored.setPayloadDictionaryId(row.get("payload_dictionary_id", Integer.class));
+                return stored;
+            })
+            .all()
+            .concatMap(this::decompress)
+            .map(sample -> sample.getJsonData() != null
+                ? sample.getJsonData().getBytes(StandardCharsets.UTF_8)
+                : sample.getBsonData())
+            .collectList()
+            .flatMap(samples -> {
+                if (samples.size() < minSamples) {
+                    log.info("Not training a payload dictionary: {} stored payloads, {} needed", samples.size(), minSamples);
+                    return Mono.empty();
+                }
+                return Mono.fromCallable(() -> train(samples, dictionarySize))
+                    .flatMap(dictionary -> dictionaryRepository.save(PayloadDictionary.builder()
+                        .codec(ZSTD)
+                        .dictionary(dictionary)
+                        .sampleCount(samples.size())
+                        .createdTime(LocalDateTime.now())
+                        .build()));
+            })
+            .map(saved -> {
+                register(saved);
+                log.info("Trained payload dictionary {} from {} payloads", saved.getId(), saved.getSampleCount());
+                return saved.getId();
+            });
+    }
+
+    // Payloads drift as clients add fields, so the dictionary is retrained periodically
+    @Scheduled(initialDelayString = "${transaction.payload-compression.retrain-interval:24h}",
+               fixedDelayString = "${transaction.payload-compression.retrain-interval:24h}")
+    public void retrainDictionary() {
+        if (!enabled) {
+            return;
+        }
+        trainDictionary()
+            .doOnError(error -> log.error("Failed to retrain payload dictionary: {}", error.getMessage()))
+            .onErrorResume(error -> Mono.empty())
+            .block(STARTUP_TIMEOUT);
+    }
+
+    /**
+     * Train a zstd dictionary from sample payloads
+     * @param samples Sample payloads
+     * @param dictionarySize Maximum dictionary size in bytes
+     * @return the trained dictionary
+     */
+    public static byte[] train(List<byte[]> samples, int dictionarySize) {
+        int totalSize = samples.stream().mapToInt(sample -> sample.length).sum();
+        ZstdDictTrainer trainer = new ZstdDictTrainer(totalSize, dictionarySize);
+        samples.forEach(trainer::addSample);
+        return trainer.trainSamples();
+    }
+
+    private ZstdDictDecompress register(PayloadDictionary dictionary) {
+        ZstdDictDecompress decompressor = decompressors.computeIfAbsent(dictionary.getId(),
+            id -> new ZstdDictDecompress(dictionary.getDictionary()));
+        WriteDictionary current = writeDictionary;
+        if (current.id() == null || dictionary.getId() > current.id()) {
+            writeDictionary = new WriteDictionary(dictionary.getId(), new ZstdDictCompress(dictionary.getDictionary(), level));
+        }
+        return decompressor;
+    }
+
+    private Transaction restore(Transaction transaction, ZstdDictDecompress decompressor) {
+        byte[] compressed = transaction.getBsonData();
+        int size = (int) Zstd.getFrameContentSize(compressed);
+        byte[] raw = decompressor == null
+            ? Zstd.decompress(compressed, size)
+            : Zstd.decompress(compressed, decompressor, size);
+
+        if ("JSON".equalsIgnoreCase(transaction.getPayloadEncoding())) {
+            transaction.setJsonData(new String(raw, StandardCharsets.UTF_8));
+            transaction.setBsonData(null);
+        } else {
+            transaction.setBsonData(raw);
+        }
+        transaction.setPayloadCodec(null);
+        transaction.setPayloadDictionaryId(null);
+        return transaction;
+    }
+
+    private static byte[] toBytes(Object value) {
+        if (value instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        }
+        return (byte[]) value;
+    }
+
+    /**
+     * A payload as it is stored
+     * @param encoding Encoding of the uncompressed payload
+     * @param codec Compression codec
+     * @param dictionaryId Dictionary the payload was compressed with, or null for none
+     * @param bytes Compressed payload
+     */
+    public record CompressedPayload(String encoding, String codec, Integer dictionaryId, byte[] bytes) {
+    }
+
+    private record WriteDictionary(Integer id, ZstdDictCompress compressor) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.tabcorp.transaction.management.payload;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Read-only view of the {@code jsonData}/{@code bsonData} payload of a transaction.
+ *
+ * Field accessors read only the requested field: a BSON payload is read in place
+ * through a {@link org.bson.RawBsonDocument} over the stored bytes, and a JSON payload is scanned
+ * token by token up to the field. Nested fields are addressed with dotted paths such as
+ * {@code metadata.channel}. Accessors return null when the field is missing, null, or of a
+ * different type. {@link #toMap()} materializes the whole document and is meant for callers that
+ * really need all of it.
+ */
+public interface TransactionPayload {
+
+    boolean contains(String field);
+
+    String getString(String field);
+
+    /**
+     * Read an integral numeric field
+     * @param field Field name or dotted path
+     * @return the value, or null if the field is not a number, has a fractional part or does not fit
+     * in a long; values are never truncated
+     */
+    default Long getLong(String field) {
+        Number value = getNumber(field);
+        if (value == null || value instanceof Integer || value instanceof Long) {
+            return value == null ? null : value.longValue();
+        }
+        try {
+            return new BigDecimal(value.toString()).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            // Fractional, out of range, NaN or infinite
+            return null;
+        }
+    }
+
+    Double getDouble(String field);
+
+    /**
+     * Read a numeric field as stored, so integral and floating point values can be told apart
+     * @param field Field name or dotted path
+     * @return an Integer, Long or BigInteger for integral values, a Double or BigDecimal otherwise,
+     * or null if the field is not a number
+     */
+    Number getNumber(String field);
+
+    Boolean getBoolean(String field);
+
+    Map<String, Object> toMap();
+
+    /**
+     * Create the view for a payload
+     * @param payloadEncoding JSON or BSON; how the payload bytes are encoded
+     * @param jsonData JSON payload text
+     * @param bsonData payload bytes, a BSON document unless tagged as JSON
+     * @return the payload view, or null if the transaction has no payload
+     */
+    static TransactionPayload of(String payloadEncoding, String jsonData, byte[] bsonData) {
+        if (jsonData != null && !jsonData.isEmpty()) {
+            return new JsonTransactionPayload(jsonData);
+        }
+        if (bsonData != null && bsonData.length > 0) {
+            return "JSON".equalsIgnoreCase(payloadEncoding)
+                ? new JsonTransactionPayload(bsonData)
+                : new BsonTransactionPayload(bsonData);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tabcorp.transaction.management.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Key-sharded executor stage.
+ *
+ * Keys (customer ids) are hashed onto a fixed number of independent lanes. Each lane runs one task
+ * at a time, in submission order, so work for the same key is never reordered while different lanes
+ * proceed in parallel. The number of lanes defaults to the number of available cores.
+ */
+@Component
+@Slf4j
+public class KeyedLaneExecutor implements DisposableBean {
+
+    private final Lane[] lanes;
+    private final Scheduler scheduler;
+
+    @Autowired
+    public KeyedLaneExecutor(@Value("${transaction.processing.lanes:0}") int configuredLanes) {
+        int laneCount = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        this.scheduler = Schedulers.newParallel("transaction-lane", laneCount);
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(scheduler.createWorker());
+        }
+        log.info("Transaction pipeline running on {} lanes", laneCount);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Lane a key is pinned to. Null keys all share lane 0.
+     */
+    public int laneOf(Integer key) {
+        return key == null ? 0 : Math.floorMod(key, lanes.length);
+    }
+
+    /**
+     * Split items into one list per lane, keeping the original relative order within each list.
+     * Lanes without items are omitted.
+     */
+    public <T> List<List<T>> partition(List<T> items, Function<T, Integer> keyFunction) {
+        List<List<T>> perLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            perLane.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            perLane.get(laneOf(keyFunction.apply(item))).add(item);
+        }
+        perLane.removeIf(List::isEmpty);
+        return perLane;
+    }
+
+    /**
+     * Queue a task on the lane of the given key. The task is queued when the returned Mono is
+     * subscribed and starts once every task queued before it on the same lane has terminated.
+     * @param key key used to select the lane
+     * @param task supplier of the work to run
+     * @return Mono emitting the result of the task
+     */
+    public <R> Mono<R> submit(Integer key, Supplier<? extends Mono<R>> task) {
+        return Mono.defer(() -> {
+            CompletableFuture<R> result = new CompletableFuture<>();
+            lanes[laneOf(key)].enqueue(task, result);
+            return Mono.fromFuture(result);
+        });
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private static final class Lane {
+        private final Scheduler.Worker worker;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Lane(Scheduler.Worker worker) {
+            this.worker = worker;
+        }
+
+        private <R> void enqueue(Supplier<? extends Mono<R>> task, CompletableFuture<R> result) {
+            queue.offer(() -> Mono.defer(task)
+                .doFinally(signalType -> onTaskDone())
+                .subscribe(result::complete, result::completeExceptionally, () -> result.complete(null)));
+            if (pending.getAndIncrement() == 0) {
+                worker.schedule(this::runNext);
+            }
+        }
+
+        private void runNext() {
+            queue.poll().run();
+        }
+
+        private void onTaskDone() {
+            if (pending.decrementAndGet() > 0) {
+                worker.schedule(this::runNext);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tabcorp.transaction.management.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Rebuilds the customer and product cost summaries and rollups from the transaction table at startup.
+ *
+ * Runs in an earlier lifecycle phase than the Kafka listener containers, so no batch can be
+ * added to the summaries before they have been rebuilt. Both the rebuild and the incremental updates
+ * price transactions with the unit cost stored on each one, so a restart after a price change gives
+ * the same totals as before it.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CostSummaryInitializer implements SmartLifecycle {
+
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(5);
+
+    private final TransactionRepository transactionRepository;
+    private final ReactiveTransactionManager transactionManager;
+
+    @Value("${transaction.rollup.allowed-lateness:1h}")
+    private Duration allowedLateness;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        transactionRepository.rebuildCostSummaries()
+            .then(Mono.defer(() -> transactionRepository.rebuildCostRollups(allowedLateness)))
+            .as(TransactionalOperator.create(transactionManager)::transactional)
+            .block(REBUILD_TIMEOUT);
+        running = true;
+        log.info("Rebuilt cost summaries and rollups in {} ms", Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Kafka listener containers start in phase Integer.MAX_VALUE - 100
+        return Integer.MAX_VALUE - 200;
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.data.r2dbc.repository.Query;
 import reactor.core.publisher.Mono;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface CustomerRepository extends R2dbcRepository<Customer, Integer> {
     // Batch insert for customers
@@ -15,6 +17,14 @@ public interface CustomerRepository extends R2dbcRepository<Customer, Integer> {
     
     // Find by location for analytics
     Flux<Customer> findByLocation(String location);
+
+    // Existing customer ids among the given ids, for set-based batch validation
+    @Query("SELECT customer_id FROM customer WHERE customer_id IN (:customerIds)")
+    Flux<Integer> findExistingCustomerIds(Collection<Integer> customerIds);
+
+    // All customer ids, for the in-memory reference snapshot
+    @Query("SELECT customer_id FROM customer")
+    Flux<Integer> findAllCustomerIds();
     
 }
 
@@ -0,0 +1,25 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadCompressor;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.event.AfterConvertCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restores compressed payloads as transactions are read, so callers such as
+ * {@link Transaction#getDataAsMap()} never see the stored form.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadDecompressionCallback implements AfterConvertCallback<Transaction> {
+
+    private final PayloadCompressor payloadCompressor;
+
+    @Override
+    public Publisher<Transaction> onAfterConvert(Transaction entity, SqlIdentifier table) {
+        return payloadCompressor.decompress(entity);
+    }
+}
@@ -0,0 +1,9 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.entity.PayloadDictionary;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PayloadDictionaryRepository extends R2dbcRepository<PayloadDictionary, Integer> {
+}
@@ -6,6 +6,8 @@ import org.springframework.data.r2dbc.repository.Query;
 import reactor.core.publisher.Flux;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface ProductRepository extends R2dbcRepository<Product, String> {
     // Batch insert for products
@@ -14,5 +16,8 @@ public interface ProductRepository extends R2dbcRepository<Product, String> {
 
     // Find active products
     Flux<Product> findByStatus(String status);
+
+    // Products with the given codes, for set-based batch validation
+    Flux<Product> findByProductCodeIn(Collection<String> productCodes);
 }
 
@@ -0,0 +1,92 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadAttributePromoter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills the promoted attribute columns of rows stored before the attributes were promoted, or
+ * before the promoted paths were reconfigured, at startup.
+ *
+ * Only rows not yet marked with the fingerprint of the configured paths are read, and every row read
+ * is marked, including rows whose payload holds none of the paths, so each row is read once per path
+ * configuration. The backfill never fails startup: a row whose payload cannot be read or updated is
+ * logged, skipped and read again at the next startup, and if the scan itself fails the remaining
+ * rows are left for the next startup.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PromotedAttributeBackfill implements SmartLifecycle {
+
+    private static final Duration BACKFILL_TIMEOUT = Duration.ofMinutes(5);
+    private static final int CONCURRENT_UPDATES = 8;
+
+    private final TransactionRepository transactionRepository;
+    private final PayloadAttributePromoter attributePromoter;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        AtomicLong skipped = new AtomicLong();
+        try {
+            Long updated = transactionRepository.findNotPromotedWith(attributePromoter.fingerprint())
+                .filter(transaction -> promote(transaction, skipped))
+                .flatMap(transaction -> transactionRepository.updatePromotedAttributes(transaction.getId(),
+                        transaction.getCurrency(), transaction.getPaymentMethod(), transaction.getChannel(),
+                        transaction.getPromotedPaths())
+                    .onErrorResume(error -> {
+                        skipped.incrementAndGet();
+                        log.warn("Failed to backfill promoted attributes of transaction {}: {}",
+                            transaction.getId(), error.getMessage());
+                        return Mono.empty();
+                    }), CONCURRENT_UPDATES)
+                .count()
+                .block(BACKFILL_TIMEOUT);
+            log.info("Backfilled promoted attributes of {} transactions in {} ms, skipped {}", updated,
+                Duration.ofNanos(System.nanoTime() - started).toMillis(), skipped.get());
+        } catch (RuntimeException e) {
+            log.error("Promoted attribute backfill stopped after {} ms, remaining rows are retried at the next startup: {}",
+                Duration.ofNanos(System.nanoTime() - started).toMillis(), e.getMessage(), e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // After PayloadCompressor has loaded its dictionaries, before the Kafka listener containers
+        return Integer.MAX_VALUE - 150;
+    }
+
+    // Rows whose payload holds none of the paths are still updated, to mark them as read
+    private boolean promote(Transaction transaction, AtomicLong skipped) {
+        try {
+            attributePromoter.promote(transaction);
+            return true;
+        } catch (RuntimeException e) {
+            skipped.incrementAndGet();
+            log.warn("Skipping promoted attributes of transaction {}, its payload cannot be read: {}",
+                transaction.getId(), e.getMessage());
+            return false;
+        }
+    }
+}
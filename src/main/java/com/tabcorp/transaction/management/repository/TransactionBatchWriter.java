@@ -0,0 +1,175 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind batcher for customer transactions.
+ *
+ * Rows written by concurrent callers are queued and flushed as one multi-row INSERT once
+ * {@code transaction.persistence.batch-size} rows are waiting or {@code transaction.persistence.flush-interval}
+ * has passed, whichever comes first. Each flush runs in its own database transaction, together with
+ * the matching update of the customer and product cost summaries and time-bucketed rollups, and every
+ * caller is completed with its row (id set) once the flush holding it has committed. Transactions
+ * processed more than {@code transaction.rollup.allowed-lateness} after their transaction time are
+ * left out of the rollups and counted as {@code transaction.rollup.late}.
+ *
+ * Flushes run one at a time, so rows commit in the order they were queued and the per-customer order
+ * kept by the processing lanes holds in the database. If a flush fails, its rows are retried once,
+ * one row per transaction, so a row that cannot be stored fails only its own caller. On shutdown the
+ * rows already queued are flushed, waiting at most {@code transaction.persistence.shutdown-timeout}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TransactionBatchWriter {
+
+    private final TransactionRepository transactionRepository;
+    private final ReactiveTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transaction.persistence.batch-size:100}")
+    private int batchSize;
+
+    @Value("${transaction.persistence.flush-interval:20ms}")
+    private Duration flushInterval;
+
+    @Value("${transaction.persistence.shutdown-timeout:10s}")
+    private Duration shutdownTimeout;
+
+    @Value("${transaction.rollup.allowed-lateness:1h}")
+    private Duration allowedLateness;
+
+    private final Sinks.Many<PendingWrite> pending = Sinks.many().unicast().onBackpressureBuffer();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private Disposable flusher;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        flushTimer = Timer.builder("transaction.persistence.flush.time")
+            .description("Time taken to insert one batch of transactions")
+            .register(meterRegistry);
+
+        TransactionalOperator transactionalOperator = TransactionalOperator.create(transactionManager);
+        flusher = pending.asFlux()
+            .bufferTimeout(batchSize, flushInterval, true)
+            .concatMap(batch -> flush(batch, transactionalOperator))
+            .doFinally(signalType -> drained.countDown())
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pending.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        try {
+            // bufferTimeout emits the last partial batch on completion; let it and any queued batches commit
+            if (!drained.await(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Stopped waiting for queued transactions to be flushed after {}", shutdownTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher != null) {
+            flusher.dispose();
+        }
+    }
+
+    /**
+     * Queue a single transaction for insertion.
+     * @param transaction Transaction to insert
+     * @return Mono of the inserted transaction once its batch has been committed
+     */
+    public Mono<Transaction> write(Transaction transaction) {
+        return Mono.defer(() -> enqueue(transaction));
+    }
+
+    /**
+     * Queue transactions for insertion, keeping their relative order.
+     * @param transactions Transactions to insert
+     * @return Flux of the inserted transactions, in input order, ending with an error if any of them failed
+     */
+    public Flux<Transaction> writeAll(List<Transaction> transactions) {
+        return Flux.defer(() -> {
+            List<Mono<Transaction>> results = new ArrayList<>(transactions.size());
+            transactions.forEach(transaction -> results.add(enqueue(transaction)));
+            // Rows that did commit are still emitted when an earlier one failed
+            return Flux.mergeSequentialDelayError(results, Math.max(1, results.size()), 1);
+        });
+    }
+
+    private Mono<Transaction> enqueue(Transaction transaction) {
+        Sinks.One<Transaction> result = Sinks.one();
+        pending.emitNext(new PendingWrite(transaction, result), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return result.asMono();
+    }
+
+    private Mono<Void> flush(List<PendingWrite> batch, TransactionalOperator transactionalOperator) {
+        return store(batch, transactionalOperator)
+            .onErrorResume(error -> {
+                if (batch.size() == 1) {
+                    fail(batch, error);
+                    return Mono.empty();
+                }
+                log.warn("Failed to insert batch of {} transactions, retrying them one by one: {}",
+                    batch.size(), error.getMessage());
+                return Flux.fromIterable(batch)
+                    .concatMap(write -> store(List.of(write), transactionalOperator)
+                        .onErrorResume(rowError -> {
+                            fail(List.of(write), rowError);
+                            return Mono.empty();
+                        }))
+                    .then();
+            });
+    }
+
+    private Mono<Void> store(List<PendingWrite> batch, TransactionalOperator transactionalOperator) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        batch.forEach(write -> transactions.add(write.transaction()));
+        Timer.Sample sample = Timer.start();
+
+        return transactionRepository.insertAll(transactions)
+            .then(Mono.defer(() -> transactionRepository.addToCostSummaries(transactions)))
+            .then(Mono.defer(() -> transactionRepository.addToCostRollups(transactions, allowedLateness)))
+            .as(transactionalOperator::transactional)
+            .doOnSuccess(late -> {
+                sample.stop(flushTimer);
+                if (late != null && late > 0) {
+                    meterRegistry.counter("transaction.rollup.late").increment(late);
+                    log.debug("Left {} late transactions out of the cost rollups", late);
+                }
+                meterRegistry.counter("transaction.persistence.rows").increment(batch.size());
+                log.debug("Inserted batch of {} transactions", batch.size());
+                batch.forEach(write -> write.result().tryEmitValue(write.transaction()));
+            })
+            .then();
+    }
+
+    private void fail(List<PendingWrite> writes, Throwable error) {
+        log.error("Failed to insert {} transactions: {}", writes.size(), error.getMessage());
+        meterRegistry.counter("transaction.persistence.failed").increment(writes.size());
+        writes.forEach(write -> write.result().tryEmitError(error));
+    }
+
+    private record PendingWrite(Transaction transaction, Sinks.One<Transaction> result) {
+    }
+}
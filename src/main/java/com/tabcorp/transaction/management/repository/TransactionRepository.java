@@ -1,43 +1,153 @@
 package com.tabcorp.transaction.management.repository;
 
+import com.tabcorp.transaction.management.dto.CustomerTotalsRecord;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryRecord;
+import com.tabcorp.transaction.management.dto.ProductTotalsRecord;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryRecord;
+import com.tabcorp.transaction.management.dto.TransactionDimensionsRecord;
 import com.tabcorp.transaction.management.entity.Transaction;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 @Repository
-public interface TransactionRepository extends R2dbcRepository<Transaction, Long> {
+public interface TransactionRepository extends R2dbcRepository<Transaction, Long>, TransactionRepositoryCustom {
     
     // High-volume transaction storage
     Flux<Transaction> saveAll(Flux<Transaction> transactions);
 
-    // Total cost of transactions per customer
-    @Query("SELECT t.customer_id, c.first_name, c.last_name, SUM(t.quantity * p.cost) as total_cost " +
-           "FROM customer_transaction t " +
-           "JOIN customer c ON t.customer_id = c.customer_id " +
-           "JOIN product p ON t.product_code = p.product_code " +
-           "GROUP BY t.customer_id, c.first_name, c.last_name")
+    // Total cost of transactions per customer, from the running summary
+    @Query("SELECT s.customer_id, c.first_name, c.last_name, s.total_cost_cents " +
+           "FROM customer_cost_summary s " +
+           "JOIN customer c ON s.customer_id = c.customer_id")
     Flux<CustomerTransactionSummaryRecord> getTotalCostPerCustomer();
 
-    // Total cost of transactions per product
-    @Query("SELECT t.product_code, p.status, SUM(t.quantity * p.cost) as total_cost " +
-           "FROM customer_transaction t " +
-           "JOIN product p ON t.product_code = p.product_code " +
-           "GROUP BY t.product_code, p.status")
+    // Total cost of transactions per product, from the running summary
+    @Query("SELECT s.product_code, p.status, s.total_cost_cents " +
+           "FROM product_cost_summary s " +
+           "JOIN product p ON s.product_code = p.product_code")
     Flux<ProductTransactionSummaryRecord> getTotalCostPerProduct();
 
-    // Number of transactions for Australian customers
-    @Query("SELECT COUNT(*) as transaction_count " +
+    // One page of the running customer summary in customer id order, after the given customer
+    @Query("SELECT s.customer_id, c.first_name, c.last_name, s.total_cost_cents " +
+           "FROM customer_cost_summary s " +
+           "JOIN customer c ON s.customer_id = c.customer_id " +
+           "WHERE s.customer_id > :afterCustomerId " +
+           "ORDER BY s.customer_id " +
+           "LIMIT :limit")
+    Flux<CustomerTransactionSummaryRecord> streamTotalCostPerCustomer(int afterCustomerId, int limit);
+
+    // One page of the running product summary in product code order, after the given product
+    @Query("SELECT s.product_code, p.status, s.total_cost_cents " +
+           "FROM product_cost_summary s " +
+           "JOIN product p ON s.product_code = p.product_code " +
+           "WHERE s.product_code > :afterProductCode " +
+           "ORDER BY s.product_code " +
+           "LIMIT :limit")
+    Flux<ProductTransactionSummaryRecord> streamTotalCostPerProduct(String afterProductCode, int limit);
+
+    // Total cost of transactions for some customers, from the running summary
+    @Query("SELECT s.customer_id, c.first_name, c.last_name, s.total_cost_cents " +
+           "FROM customer_cost_summary s " +
+           "JOIN customer c ON s.customer_id = c.customer_id " +
+           "WHERE s.customer_id IN (:customerIds)")
+    Flux<CustomerTransactionSummaryRecord> getTotalCostForCustomers(Collection<Integer> customerIds);
+
+    // Total cost of transactions for some products, from the running summary
+    @Query("SELECT s.product_code, p.status, s.total_cost_cents " +
+           "FROM product_cost_summary s " +
+           "JOIN product p ON s.product_code = p.product_code " +
+           "WHERE s.product_code IN (:productCodes)")
+    Flux<ProductTransactionSummaryRecord> getTotalCostForProducts(Collection<String> productCodes);
+
+    // Total cost of transactions per customer in [from, to), from the rollup buckets of one granularity
+    @Query("SELECT r.customer_id, c.first_name, c.last_name, SUM(r.total_cost_cents) AS total_cost_cents " +
+           "FROM customer_cost_rollup r " +
+           "JOIN customer c ON r.customer_id = c.customer_id " +
+           "WHERE r.granularity = :granularity AND r.bucket_start >= :from AND r.bucket_start < :to " +
+           "GROUP BY r.customer_id, c.first_name, c.last_name " +
+           "ORDER BY r.customer_id")
+    Flux<CustomerTransactionSummaryRecord> getTotalCostPerCustomerInWindow(String granularity, LocalDateTime from, LocalDateTime to);
+
+    // Total cost of transactions per product in [from, to), from the rollup buckets of one granularity
+    @Query("SELECT r.product_code, p.status, SUM(r.total_cost_cents) AS total_cost_cents " +
+           "FROM product_cost_rollup r " +
+           "JOIN product p ON r.product_code = p.product_code " +
+           "WHERE r.granularity = :granularity AND r.bucket_start >= :from AND r.bucket_start < :to " +
+           "GROUP BY r.product_code, p.status " +
+           "ORDER BY r.product_code")
+    Flux<ProductTransactionSummaryRecord> getTotalCostPerProductInWindow(String granularity, LocalDateTime from, LocalDateTime to);
+
+    // Total cost and count of transactions per customer, from the running summary, in no particular order
+    @Query("SELECT s.customer_id, c.first_name, c.last_name, s.total_cost_cents, s.transaction_count " +
+           "FROM customer_cost_summary s " +
+           "JOIN customer c ON s.customer_id = c.customer_id")
+    Flux<CustomerTotalsRecord> getCustomerTotals();
+
+    // Total cost and count of transactions per product, from the running summary, in no particular order
+    @Query("SELECT s.product_code, p.status, s.total_cost_cents, s.transaction_count " +
+           "FROM product_cost_summary s " +
+           "JOIN product p ON s.product_code = p.product_code")
+    Flux<ProductTotalsRecord> getProductTotals();
+
+    // Total cost and count of transactions per customer in [from, to), from the rollup buckets of one granularity
+    @Query("SELECT r.customer_id, c.first_name, c.last_name, SUM(r.total_cost_cents) AS total_cost_cents, " +
+           "SUM(r.transaction_count) AS transaction_count " +
+           "FROM customer_cost_rollup r " +
+           "JOIN customer c ON r.customer_id = c.customer_id " +
+           "WHERE r.granularity = :granularity AND r.bucket_start >= :from AND r.bucket_start < :to " +
+           "GROUP BY r.customer_id, c.first_name, c.last_name")
+    Flux<CustomerTotalsRecord> getCustomerTotalsInWindow(String granularity, LocalDateTime from, LocalDateTime to);
+
+    // Total cost and count of transactions per product in [from, to), from the rollup buckets of one granularity
+    @Query("SELECT r.product_code, p.status, SUM(r.total_cost_cents) AS total_cost_cents, " +
+           "SUM(r.transaction_count) AS transaction_count " +
+           "FROM product_cost_rollup r " +
+           "JOIN product p ON r.product_code = p.product_code " +
+           "WHERE r.granularity = :granularity AND r.bucket_start >= :from AND r.bucket_start < :to " +
+           "GROUP BY r.product_code, p.status")
+    Flux<ProductTotalsRecord> getProductTotalsInWindow(String granularity, LocalDateTime from, LocalDateTime to);
+
+    // Countable dimensions of the transactions after an id, in id order, to build or catch up the count index
+    @Query("SELECT t.id, c.location, t.product_code, t.data_format, t.status " +
            "FROM customer_transaction t " +
            "JOIN customer c ON t.customer_id = c.customer_id " +
-           "WHERE c.location = 'Australia'")
-    Mono<Long> getAustralianTransactionCount();
+           "WHERE t.id > :afterId " +
+           "ORDER BY t.id")
+    Flux<TransactionDimensionsRecord> findDimensionsAfter(long afterId);
 
     // Find transactions by format type (JSON/BSON)
     Flux<Transaction> findByDataFormat(String dataFormat);
 
+    // Finders on the attributes promoted from the payload, served by their indexes
+    Flux<Transaction> findByCurrency(String currency);
+
+    Flux<Transaction> findByPaymentMethod(String paymentMethod);
+
+    Flux<Transaction> findByChannel(String channel);
+
+    Mono<Long> countByCurrency(String currency);
+
+    Mono<Long> countByPaymentMethod(String paymentMethod);
+
+    Mono<Long> countByChannel(String channel);
+
+    // Rows with a payload not yet promoted with the given paths, for the startup backfill
+    @Query("SELECT * FROM customer_transaction " +
+           "WHERE (promoted_paths IS NULL OR promoted_paths <> :promotedPaths) " +
+           "AND (json_data IS NOT NULL OR bson_data IS NOT NULL)")
+    Flux<Transaction> findNotPromotedWith(int promotedPaths);
+
+    @Modifying
+    @Query("UPDATE customer_transaction SET currency = :currency, payment_method = :paymentMethod, channel = :channel, " +
+           "promoted_paths = :promotedPaths " +
+           "WHERE id = :id")
+    Mono<Integer> updatePromotedAttributes(Long id, String currency, String paymentMethod, String channel, Integer promotedPaths);
+
 }
@@ -0,0 +1,85 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bulk write and scan operations for {@link TransactionRepository} that Spring Data cannot derive.
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Insert transactions with a single statement, one binding set per row.
+     * @param transactions Transactions to insert
+     * @return Flux of the inserted transactions, in input order, with their generated ids set
+     */
+    Flux<Transaction> insertAll(List<Transaction> transactions);
+
+    /**
+     * Add inserted transactions to the customer and product cost summaries.
+     * Must run in the same database transaction as the insert.
+     * @param transactions Transactions that have been inserted
+     * @return Mono completing once both summaries are updated
+     */
+    Mono<Void> addToCostSummaries(List<Transaction> transactions);
+
+    /**
+     * Recompute the customer and product cost summaries from all stored transactions.
+     * @return Mono completing once both summaries are rebuilt
+     */
+    Mono<Void> rebuildCostSummaries();
+
+    /**
+     * Add inserted transactions to the minute, hour and day cost rollups. Transactions processed
+     * more than allowedLateness after their transaction time are left out, as they are by
+     * {@link #rebuildCostRollups(Duration)}. Must run in the same database transaction as the insert.
+     * @param transactions Transactions that have been inserted
+     * @param allowedLateness Longest delay between transaction time and processing that is still rolled up
+     * @return Mono of the number of transactions left out as late
+     */
+    Mono<Integer> addToCostRollups(List<Transaction> transactions, Duration allowedLateness);
+
+    /**
+     * Recompute the cost rollups from all stored transactions, leaving out late ones.
+     * @param allowedLateness Longest delay between transaction time and processing that is still rolled up
+     * @return Mono completing once the rollups are rebuilt
+     */
+    Mono<Void> rebuildCostRollups(Duration allowedLateness);
+
+    /**
+     * Whether a transaction was processed too long after its transaction time to be rolled up
+     * @param transaction Transaction to check
+     * @param allowedLateness Longest delay that is still rolled up
+     * @return true if the transaction is late
+     */
+    static boolean isLate(Transaction transaction, Duration allowedLateness) {
+        return transaction.getProcessedTime() != null && transaction.getTransactionTime() != null
+                && transaction.getProcessedTime().isAfter(transaction.getTransactionTime().plus(allowedLateness));
+    }
+
+    /**
+     * Get the lowest and highest transaction id, to split a full scan into id ranges.
+     * @return Mono of the id range, or empty if there are no transactions
+     */
+    Mono<IdRange> findIdRange();
+
+    /**
+     * Read one keyset page of transactions with their stored unit cost. Only the
+     * quantity and payload of each transaction are read, and compressed payloads are restored.
+     * @param afterId Exclusive lower bound of the page
+     * @param lastId Inclusive upper bound of the scanned range
+     * @param limit Maximum number of rows
+     * @return Flux of the transactions with ids in (afterId, lastId], in id order
+     */
+    Flux<CostedTransaction> scanPage(long afterId, long lastId, int limit);
+
+    record IdRange(long firstId, long lastId) {
+    }
+
+    record CostedTransaction(Transaction transaction, long unitCostCents) {
+    }
+}
@@ -0,0 +1,412 @@
+package com.tabcorp.transaction.management.repository;
+
+import com.tabcorp.transaction.management.dto.Granularity;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadCompressor;
+import com.tabcorp.transaction.management.payload.PayloadCompressor.CompressedPayload;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO customer_transaction (transaction_time, customer_id, product_code, quantity, " +
+            "data_format, json_data, bson_data, payload_encoding, payload_codec, payload_dictionary_id, processed_time, status, " +
+            "currency, payment_method, channel, unit_cost_cents, promoted_paths) " +
+            "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11, $12, $13, $14, $15, $16, $17)";
+
+    // Costs are priced with the unit cost stored on each transaction, in cents, by the incremental
+    // updates and by the rebuilds alike, so a price change never reprices stored transactions.
+    private static final String MERGE_CUSTOMER_COST =
+            "MERGE INTO customer_cost_summary s " +
+            "USING (SELECT CAST($1 AS INT) AS customer_id, CAST($2 AS BIGINT) AS cost, " +
+            "CAST($3 AS BIGINT) AS transaction_count) d " +
+            "ON s.customer_id = d.customer_id " +
+            "WHEN MATCHED THEN UPDATE SET total_cost_cents = s.total_cost_cents + d.cost, " +
+            "transaction_count = s.transaction_count + d.transaction_count " +
+            "WHEN NOT MATCHED THEN INSERT (customer_id, total_cost_cents, transaction_count) " +
+            "VALUES (d.customer_id, d.cost, d.transaction_count)";
+
+    private static final String MERGE_PRODUCT_COST =
+            "MERGE INTO product_cost_summary s " +
+            "USING (SELECT CAST($1 AS VARCHAR(20)) AS product_code, CAST($2 AS BIGINT) AS cost, " +
+            "CAST($3 AS BIGINT) AS transaction_count) d " +
+            "ON s.product_code = d.product_code " +
+            "WHEN MATCHED THEN UPDATE SET total_cost_cents = s.total_cost_cents + d.cost, " +
+            "transaction_count = s.transaction_count + d.transaction_count " +
+            "WHEN NOT MATCHED THEN INSERT (product_code, total_cost_cents, transaction_count) " +
+            "VALUES (d.product_code, d.cost, d.transaction_count)";
+
+    private static final List<String> REBUILD_COST_SUMMARIES = List.of(
+            "DELETE FROM customer_cost_summary",
+            "INSERT INTO customer_cost_summary (customer_id, total_cost_cents, transaction_count) " +
+            "SELECT t.customer_id, SUM(t.quantity * t.unit_cost_cents), COUNT(*) " +
+            "FROM customer_transaction t " +
+            "GROUP BY t.customer_id",
+            "DELETE FROM product_cost_summary",
+            "INSERT INTO product_cost_summary (product_code, total_cost_cents, transaction_count) " +
+            "SELECT t.product_code, SUM(t.quantity * t.unit_cost_cents), COUNT(*) " +
+            "FROM customer_transaction t " +
+            "GROUP BY t.product_code");
+
+    private static final String MERGE_CUSTOMER_ROLLUP =
+            "MERGE INTO customer_cost_rollup s " +
+            "USING (SELECT CAST($1 AS VARCHAR(6)) AS granularity, CAST($2 AS TIMESTAMP) AS bucket_start, " +
+            "CAST($3 AS INT) AS customer_id, CAST($4 AS BIGINT) AS cost, CAST($5 AS BIGINT) AS transaction_count) d " +
+            "ON s.granularity = d.granularity AND s.bucket_start = d.bucket_start AND s.customer_id = d.customer_id " +
+            "WHEN MATCHED THEN UPDATE SET total_cost_cents = s.total_cost_cents + d.cost, " +
+            "transaction_count = s.transaction_count + d.transaction_count " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, bucket_start, customer_id, total_cost_cents, transaction_count) " +
+            "VALUES (d.granularity, d.bucket_start, d.customer_id, d.cost, d.transaction_count)";
+
+    private static final String MERGE_PRODUCT_ROLLUP =
+            "MERGE INTO product_cost_rollup s " +
+            "USING (SELECT CAST($1 AS VARCHAR(6)) AS granularity, CAST($2 AS TIMESTAMP) AS bucket_start, " +
+            "CAST($3 AS VARCHAR(20)) AS product_code, CAST($4 AS BIGINT) AS cost, CAST($5 AS BIGINT) AS transaction_count) d " +
+            "ON s.granularity = d.granularity AND s.bucket_start = d.bucket_start AND s.product_code = d.product_code " +
+            "WHEN MATCHED THEN UPDATE SET total_cost_cents = s.total_cost_cents + d.cost, " +
+            "transaction_count = s.transaction_count + d.transaction_count " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, bucket_start, product_code, total_cost_cents, transaction_count) " +
+            "VALUES (d.granularity, d.bucket_start, d.product_code, d.cost, d.transaction_count)";
+
+    // Minute buckets are built from the transactions, skipping late ones; hour and day buckets from the finer buckets
+    private static final String ON_TIME =
+            "(t.processed_time IS NULL OR t.processed_time <= DATEADD('SECOND', :allowedLateness, t.transaction_time))";
+
+    private static final List<String> REBUILD_COST_ROLLUPS = List.of(
+            "DELETE FROM customer_cost_rollup",
+            "INSERT INTO customer_cost_rollup (granularity, bucket_start, customer_id, total_cost_cents, transaction_count) " +
+            "SELECT 'MINUTE', DATE_TRUNC('MINUTE', t.transaction_time), t.customer_id, " +
+            "SUM(t.quantity * t.unit_cost_cents), COUNT(*) " +
+            "FROM customer_transaction t " +
+            "WHERE " + ON_TIME + " " +
+            "GROUP BY DATE_TRUNC('MINUTE', t.transaction_time), t.customer_id",
+            "INSERT INTO customer_cost_rollup (granularity, bucket_start, customer_id, total_cost_cents, transaction_count) " +
+            "SELECT 'HOUR', DATE_TRUNC('HOUR', r.bucket_start), r.customer_id, SUM(r.total_cost_cents), SUM(r.transaction_count) " +
+            "FROM customer_cost_rollup r WHERE r.granularity = 'MINUTE' " +
+            "GROUP BY DATE_TRUNC('HOUR', r.bucket_start), r.customer_id",
+            "INSERT INTO customer_cost_rollup (granularity, bucket_start, customer_id, total_cost_cents, transaction_count) " +
+            "SELECT 'DAY', DATE_TRUNC('DAY', r.bucket_start), r.customer_id, SUM(r.total_cost_cents), SUM(r.transaction_count) " +
+            "FROM customer_cost_rollup r WHERE r.granularity = 'HOUR' " +
+            "GROUP BY DATE_TRUNC('DAY', r.bucket_start), r.customer_id",
+            "DELETE FROM product_cost_rollup",
+            "INSERT INTO product_cost_rollup (granularity, bucket_start, product_code, total_cost_cents, transaction_count) " +
+            "SELECT 'MINUTE', DATE_TRUNC('MINUTE', t.transaction_time), t.product_code, " +
+            "SUM(t.quantity * t.unit_cost_cents), COUNT(*) " +
+            "FROM customer_transaction t " +
+            "WHERE " + ON_TIME + " " +
+            "GROUP BY DATE_TRUNC('MINUTE', t.transaction_time), t.product_code",
+            "INSERT INTO product_cost_rollup (granularity, bucket_start, product_code, total_cost_cents, transaction_count) " +
+            "SELECT 'HOUR', DATE_TRUNC('HOUR', r.bucket_start), r.product_code, SUM(r.total_cost_cents), SUM(r.transaction_count) " +
+            "FROM product_cost_rollup r WHERE r.granularity = 'MINUTE' " +
+            "GROUP BY DATE_TRUNC('HOUR', r.bucket_start), r.product_code",
+            "INSERT INTO product_cost_rollup (granularity, bucket_start, product_code, total_cost_cents, transaction_count) " +
+            "SELECT 'DAY', DATE_TRUNC('DAY', r.bucket_start), r.product_code, SUM(r.total_cost_cents), SUM(r.transaction_count) " +
+            "FROM product_cost_rollup r WHERE r.granularity = 'HOUR' " +
+            "GROUP BY DATE_TRUNC('DAY', r.bucket_start), r.product_code");
+
+    private static final String FIND_ID_RANGE =
+            "SELECT MIN(id) AS first_id, MAX(id) AS last_id FROM customer_transaction";
+
+    private static final String SCAN_PAGE =
+            "SELECT t.id, t.quantity, t.json_data, t.bson_data, t.payload_encoding, t.payload_codec, " +
+            "t.payload_dictionary_id, t.unit_cost_cents " +
+            "FROM customer_transaction t " +
+            "WHERE t.id > :afterId AND t.id <= :lastId ORDER BY t.id LIMIT :limit";
+
+    private final DatabaseClient databaseClient;
+    private final PayloadCompressor payloadCompressor;
+
+    @Override
+    public Flux<Transaction> insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_TRANSACTION).returnGeneratedValues("id");
+            for (int i = 0; i < transactions.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, transactions.get(i));
+            }
+
+            // One result per binding set, in binding order
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                    .index()
+                    .map(indexedId -> {
+                        Transaction transaction = transactions.get(indexedId.getT1().intValue());
+                        transaction.setId(indexedId.getT2());
+                        return transaction;
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Void> addToCostSummaries(List<Transaction> transactions) {
+        // Collapse the batch to one delta per customer and one per product. Sorted keys
+        // make flushes from different instances lock summary rows in the same order.
+        Map<Integer, long[]> customerDeltas = new TreeMap<>();
+        Map<String, long[]> productDeltas = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            long cost = cost(transaction);
+            long[] customerDelta = customerDeltas.computeIfAbsent(transaction.getCustomerId(), key -> new long[2]);
+            customerDelta[0] += cost;
+            customerDelta[1]++;
+            long[] productDelta = productDeltas.computeIfAbsent(transaction.getProductCode(), key -> new long[2]);
+            productDelta[0] += cost;
+            productDelta[1]++;
+        }
+        if (customerDeltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            Statement customerStatement = connection.createStatement(MERGE_CUSTOMER_COST);
+            boolean first = true;
+            for (Map.Entry<Integer, long[]> delta : customerDeltas.entrySet()) {
+                if (!first) {
+                    customerStatement.add();
+                }
+                first = false;
+                customerStatement.bind(0, delta.getKey())
+                        .bind(1, delta.getValue()[0])
+                        .bind(2, delta.getValue()[1]);
+            }
+
+            Statement productStatement = connection.createStatement(MERGE_PRODUCT_COST);
+            first = true;
+            for (Map.Entry<String, long[]> delta : productDeltas.entrySet()) {
+                if (!first) {
+                    productStatement.add();
+                }
+                first = false;
+                productStatement.bind(0, delta.getKey())
+                        .bind(1, delta.getValue()[0])
+                        .bind(2, delta.getValue()[1]);
+            }
+
+            return Flux.from(customerStatement.execute())
+                    .concatMap(Result::getRowsUpdated)
+                    .thenMany(Flux.from(productStatement.execute()))
+                    .concatMap(Result::getRowsUpdated);
+        }).then();
+    }
+
+    @Override
+    public Mono<Void> rebuildCostSummaries() {
+        return Flux.fromIterable(REBUILD_COST_SUMMARIES)
+                .concatMap(sql -> databaseClient.sql(sql).fetch().rowsUpdated())
+                .then();
+    }
+
+    @Override
+    public Mono<Integer> addToCostRollups(List<Transaction> transactions, Duration allowedLateness) {
+        // One delta per bucket of every granularity, as for the summaries; sorted keys keep the lock order
+        Map<CustomerBucket, long[]> customerDeltas = new TreeMap<>();
+        Map<ProductBucket, long[]> productDeltas = new TreeMap<>();
+        int late = 0;
+        for (Transaction transaction : transactions) {
+            if (TransactionRepositoryCustom.isLate(transaction, allowedLateness)) {
+                late++;
+                continue;
+            }
+            long cost = cost(transaction);
+            for (Granularity granularity : Granularity.values()) {
+                LocalDateTime bucketStart = granularity.bucketStart(transaction.getTransactionTime());
+                long[] customerDelta = customerDeltas.computeIfAbsent(
+                        new CustomerBucket(granularity, bucketStart, transaction.getCustomerId()), key -> new long[2]);
+                customerDelta[0] += cost;
+                customerDelta[1]++;
+                long[] productDelta = productDeltas.computeIfAbsent(
+                        new ProductBucket(granularity, bucketStart, transaction.getProductCode()), key -> new long[2]);
+                productDelta[0] += cost;
+                productDelta[1]++;
+            }
+        }
+        int skipped = late;
+        if (customerDeltas.isEmpty()) {
+            return Mono.just(skipped);
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            Statement customerStatement = connection.createStatement(MERGE_CUSTOMER_ROLLUP);
+            boolean first = true;
+            for (Map.Entry<CustomerBucket, long[]> delta : customerDeltas.entrySet()) {
+                if (!first) {
+                    customerStatement.add();
+                }
+                first = false;
+                CustomerBucket bucket = delta.getKey();
+                customerStatement.bind(0, bucket.granularity().name())
+                        .bind(1, bucket.bucketStart())
+                        .bind(2, bucket.customerId())
+                        .bind(3, delta.getValue()[0])
+                        .bind(4, delta.getValue()[1]);
+            }
+
+            Statement productStatement = connection.createStatement(MERGE_PRODUCT_ROLLUP);
+            first = true;
+            for (Map.Entry<ProductBucket, long[]> delta : productDeltas.entrySet()) {
+                if (!first) {
+                    productStatement.add();
+                }
+                first = false;
+                ProductBucket bucket = delta.getKey();
+                productStatement.bind(0, bucket.granularity().name())
+                        .bind(1, bucket.bucketStart())
+                        .bind(2, bucket.productCode())
+                        .bind(3, delta.getValue()[0])
+                        .bind(4, delta.getValue()[1]);
+            }
+
+            return Flux.from(customerStatement.execute())
+                    .concatMap(Result::getRowsUpdated)
+                    .thenMany(Flux.from(productStatement.execute()))
+                    .concatMap(Result::getRowsUpdated);
+        }).then(Mono.just(skipped));
+    }
+
+    @Override
+    public Mono<Void> rebuildCostRollups(Duration allowedLateness) {
+        return Flux.fromIterable(REBUILD_COST_ROLLUPS)
+                .concatMap(sql -> {
+                    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+                    if (sql.contains(":allowedLateness")) {
+                        spec = spec.bind("allowedLateness", allowedLateness.toSeconds());
+                    }
+                    return spec.fetch().rowsUpdated();
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<IdRange> findIdRange() {
+        return databaseClient.sql(FIND_ID_RANGE)
+                .map(row -> {
+                    Long firstId = row.get("first_id", Long.class);
+                    return firstId == null
+                            ? Optional.<IdRange>empty()
+                            : Optional.of(new IdRange(firstId, row.get("last_id", Long.class)));
+                })
+                .one()
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    @Override
+    public Flux<CostedTransaction> scanPage(long afterId, long lastId, int limit) {
+        return databaseClient.sql(SCAN_PAGE)
+                .bind("afterId", afterId)
+                .bind("lastId", lastId)
+                .bind("limit", limit)
+                .map(row -> {
+                    Transaction transaction = new Transaction();
+                    transaction.setId(row.get("id", Long.class));
+                    transaction.setQuantity(row.get("quantity", Integer.class));
+                    transaction.setJsonData(row.get("json_data", String.class));
+                    transaction.setBsonData(toBytes(row.get("bson_data")));
+                    transaction.setPayloadEncoding(row.get("payload_encoding", String.class));
+                    transaction.setPayloadCodec(row.get("payload_codec", String.class));
+                    transaction.setPayloadDictionaryId(row.get("payload_dictionary_id", Integer.class));
+                    return new CostedTransaction(transaction, row.get("unit_cost_cents", Long.class));
+                })
+                .all()
+                .concatMap(costed -> payloadCompressor.decompress(costed.transaction()).thenReturn(costed));
+    }
+
+    // DatabaseClient rows bypass the entity converters, so binary columns may arrive as a ByteBuffer
+    private static byte[] toBytes(Object value) {
+        if (value instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        }
+        return (byte[]) value;
+    }
+
+    private void bind(Statement statement, Transaction transaction) {
+        bindNullable(statement, 0, transaction.getTransactionTime(), LocalDateTime.class);
+        bindNullable(statement, 1, transaction.getCustomerId(), Integer.class);
+        bindNullable(statement, 2, transaction.getProductCode(), String.class);
+        bindNullable(statement, 3, transaction.getQuantity(), Integer.class);
+        bindNullable(statement, 4, transaction.getDataFormat(), String.class);
+        CompressedPayload compressed = payloadCompressor.compress(transaction);
+        if (compressed == null) {
+            bindNullable(statement, 5, transaction.getJsonData(), String.class);
+            bindNullable(statement, 6, transaction.getBsonData() == null ? null : ByteBuffer.wrap(transaction.getBsonData()), ByteBuffer.class);
+            bindNullable(statement, 7, transaction.getPayloadEncoding(), String.class);
+            statement.bindNull(8, String.class);
+            statement.bindNull(9, Integer.class);
+        } else {
+            // Compressed payloads are always held in the binary column
+            statement.bindNull(5, String.class);
+            statement.bind(6, ByteBuffer.wrap(compressed.bytes()));
+            bindNullable(statement, 7, compressed.encoding(), String.class);
+            statement.bind(8, compressed.codec());
+            bindNullable(statement, 9, compressed.dictionaryId(), Integer.class);
+        }
+        bindNullable(statement, 10, transaction.getProcessedTime(), LocalDateTime.class);
+        bindNullable(statement, 11, transaction.getStatus(), String.class);
+        bindNullable(statement, 12, transaction.getCurrency(), String.class);
+        bindNullable(statement, 13, transaction.getPaymentMethod(), String.class);
+        bindNullable(statement, 14, transaction.getChannel(), String.class);
+        bindNullable(statement, 15, transaction.getUnitCostCents(), Long.class);
+        bindNullable(statement, 16, transaction.getPromotedPaths(), Integer.class);
+    }
+
+    private static long cost(Transaction transaction) {
+        if (transaction.getUnitCostCents() == null) {
+            throw new IllegalStateException("Transaction has no unit cost, it must be validated before it is stored");
+        }
+        return Math.multiplyExact(transaction.getQuantity().longValue(), transaction.getUnitCostCents().longValue());
+    }
+
+    private void bindNullable(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private record CustomerBucket(Granularity granularity, LocalDateTime bucketStart, Integer customerId)
+            implements Comparable<CustomerBucket> {
+        @Override
+        public int compareTo(CustomerBucket other) {
+            int byGranularity = granularity.compareTo(other.granularity);
+            if (byGranularity != 0) {
+                return byGranularity;
+            }
+            int byBucket = bucketStart.compareTo(other.bucketStart);
+            return byBucket != 0 ? byBucket : Integer.compare(customerId, other.customerId);
+        }
+    }
+
+    private record ProductBucket(Granularity granularity, LocalDateTime bucketStart, String productCode)
+            implements Comparable<ProductBucket> {
+        @Override
+        public int compareTo(ProductBucket other) {
+            int byGranularity = granularity.compareTo(other.granularity);
+            if (byGranularity != 0) {
+                return byGranularity;
+            }
+            int byBucket = bucketStart.compareTo(other.bucketStart);
+            return byBucket != 0 ? byBucket : productCode.compareTo(other.productCode);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tabcorp.transaction.management.service;
+
+import com.tabcorp.transaction.management.dto.AttributeGroupDTO;
+import com.tabcorp.transaction.management.dto.TopCustomerDTO;
+import com.tabcorp.transaction.management.dto.TopProductDTO;
+import com.tabcorp.transaction.management.dto.WindowSummaryDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface AnalyticsService {
+    /**
+     * Aggregate all transactions by the value of a payload attribute
+     * @param attribute Top-level payload field to group by
+     * @param metric total_cost, transaction_count or total_quantity; groups are ordered by it, highest first
+     * @return Flux<AttributeGroupDTO> One aggregate per attribute value
+     */
+    Flux<AttributeGroupDTO> groupBy(String attribute, String metric);
+
+    /**
+     * Total cost per customer and per product of the transactions in a time window, read from the
+     * rollups of one granularity
+     * @param from Start of the window, rounded down to a bucket boundary
+     * @param to End of the window, rounded up to a bucket boundary; null for now
+     * @param granularity minute, hour or day
+     * @return Mono<WindowSummaryDTO> Totals of the window
+     */
+    Mono<WindowSummaryDTO> window(LocalDateTime from, LocalDateTime to, String granularity);
+
+    /**
+     * Count the transactions matching every given filter, from the in-memory count index
+     * @param location Customer location, or null for any
+     * @param productCode Product code, or null for any
+     * @param format Payload format (JSON or BSON), or null for any
+     * @param status Transaction status, or null for any
+     * @return Mono<Long> Number of matching transactions
+     */
+    Mono<Long> count(String location, String productCode, String format, String status);
+
+    /**
+     * The customers with the highest spend or transaction count, all time or in a time window
+     * @param n Number of customers to return
+     * @param by spend or count
+     * @param from Start of the window, or null with to for all time
+     * @param to End of the window; null for now
+     * @param granularity Rollup granularity of the window: minute, hour or day
+     * @return Flux<TopCustomerDTO> At most n customers, highest first
+     */
+    Flux<TopCustomerDTO> topCustomers(Integer n, String by, LocalDateTime from, LocalDateTime to, String granularity);
+
+    /**
+     * The products with the highest spend or transaction count, all time or in a time window
+     * @param n Number of products to return
+     * @param by spend or count
+     * @param from Start of the window, or null with to for all time
+     * @param to End of the window; null for now
+     * @param granularity Rollup granularity of the window: minute, hour or day
+     * @return Flux<TopProductDTO> At most n products, highest first
+     */
+    Flux<TopProductDTO> topProducts(Integer n, String by, LocalDateTime from, LocalDateTime to, String granularity);
+}
@@ -2,7 +2,9 @@ package com.tabcorp.transaction.management.service;
 
 import com.tabcorp.transaction.management.entity.Transaction;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.TransactionValidationResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.util.List;
@@ -35,6 +37,13 @@ public interface TransactionService {
      * @return Mono<Transaction> Validated transaction
      */
     Mono<Transaction> validateTransaction(Transaction transaction);
+
+    /**
+     * Validate a batch of transactions with one customer and one product lookup for the whole batch
+     * @param transactions Transactions to validate
+     * @return Mono<List<TransactionValidationResult>> One result per transaction, in input order
+     */
+    Mono<List<TransactionValidationResult>> validateTransactions(List<Transaction> transactions);
     
     /**
      * Get cached total cost per customer
@@ -47,4 +56,48 @@ public interface TransactionService {
      * @return Flux<ProductTransactionSummaryDTO> Cached total cost per product
      */
     Flux<ProductTransactionSummaryDTO> getCachedTotalCostPerProduct();
+
+    /**
+     * Get cached total cost per customer, encoded as a JSON array
+     * @return Mono<EncodedResponse> Encoded summaries and their entity tag
+     */
+    Mono<EncodedResponse> getEncodedTotalCostPerCustomer();
+
+    /**
+     * Get cached total cost per product, encoded as a JSON array
+     * @return Mono<EncodedResponse> Encoded summaries and their entity tag
+     */
+    Mono<EncodedResponse> getEncodedTotalCostPerProduct();
+
+    /**
+     * Get the cached total cost of one customer
+     * @param customerId Customer to look up
+     * @return Mono<CustomerTransactionSummaryDTO> Cached total cost, or empty if the customer has no transactions
+     */
+    Mono<CustomerTransactionSummaryDTO> getCachedCustomerSummary(Integer customerId);
+
+    /**
+     * Get the cached total cost of one product
+     * @param productCode Product to look up
+     * @return Mono<ProductTransactionSummaryDTO> Cached total cost, or empty if the product has no transactions
+     */
+    Mono<ProductTransactionSummaryDTO> getCachedProductSummary(String productCode);
+
+    /**
+     * Stream total cost per customer straight from the database, in customer id order, reading it
+     * in bounded keyset pages
+     * @param afterCustomerId Keyset cursor: only customers after this one, or null to start at the first
+     * @param limit Maximum number of rows, or null for all of them
+     * @return Flux<CustomerTransactionSummaryDTO> Rows page by page, at the pace they are consumed
+     */
+    Flux<CustomerTransactionSummaryDTO> streamTotalCostPerCustomer(Integer afterCustomerId, Integer limit);
+
+    /**
+     * Stream total cost per product straight from the database, in product code order, reading it
+     * in bounded keyset pages
+     * @param afterProductCode Keyset cursor: only products after this one, or null to start at the first
+     * @param limit Maximum number of rows, or null for all of them
+     * @return Flux<ProductTransactionSummaryDTO> Rows page by page, at the pace they are consumed
+     */
+    Flux<ProductTransactionSummaryDTO> streamTotalCostPerProduct(String afterProductCode, Integer limit);
 }
@@ -0,0 +1,370 @@
+package com.tabcorp.transaction.management.service.impl;
+
+import com.tabcorp.transaction.management.cache.TransactionCountIndex;
+import com.tabcorp.transaction.management.cache.TransactionCountIndex.Dimension;
+import com.tabcorp.transaction.management.dto.AttributeGroupDTO;
+import com.tabcorp.transaction.management.dto.CustomerTotalsRecord;
+import com.tabcorp.transaction.management.dto.Granularity;
+import com.tabcorp.transaction.management.dto.ProductTotalsRecord;
+import com.tabcorp.transaction.management.dto.TopCustomerDTO;
+import com.tabcorp.transaction.management.dto.TopProductDTO;
+import com.tabcorp.transaction.management.dto.WindowSummaryDTO;
+import com.tabcorp.transaction.management.exception.InvalidRequestException;
+import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import com.tabcorp.transaction.management.payload.TransactionPayload;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import com.tabcorp.transaction.management.repository.TransactionRepositoryCustom.CostedTransaction;
+import com.tabcorp.transaction.management.repository.TransactionRepositoryCustom.IdRange;
+import com.tabcorp.transaction.management.service.AnalyticsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Group-by analytics over payload attributes, and windowed totals.
+ *
+ * The transaction id range is split into one partition per worker, and every partition is scanned
+ * with keyset pagination at the same time. Each partition is aggregated on its own worker of the
+ * parallel scheduler, reading only the requested field from each payload, and the partial
+ * aggregates are merged once all partitions are done.
+ *
+ * Windowed totals are summed from the minute, hour or day cost rollups kept by the batch writer,
+ * so a window costs one index range scan over its buckets however many transactions it holds.
+ * Windows are limited to {@code transaction.analytics.window.max-buckets} buckets.
+ *
+ * Counts by location, product, format and status are answered from the {@link TransactionCountIndex}.
+ *
+ * Top-N rankings stream the all-time summaries, or the rollup totals of a window, through a min-heap
+ * of the n best rows seen so far, so they take O(n) memory and never sort the full result.
+ */
+@Service
+@Slf4j
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    private static final Pattern ATTRIBUTE = Pattern.compile("[A-Za-z0-9_]{1,64}");
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionSummaryMapper mapper;
+    private final TransactionCountIndex countIndex;
+    private final MeterRegistry meterRegistry;
+    private final int partitions;
+    private final int pageSize;
+    private final long maxWindowBuckets;
+    private final int maxTopN;
+
+    public AnalyticsServiceImpl(TransactionRepository transactionRepository,
+                                TransactionSummaryMapper mapper,
+                                TransactionCountIndex countIndex,
+                                MeterRegistry meterRegistry,
+                                @Value("${transaction.analytics.partitions:0}") int partitions,
+                                @Value("${transaction.analytics.page-size:1000}") int pageSize,
+                                @Value("${transaction.analytics.window.max-buckets:1440}") long maxWindowBuckets,
+                                @Value("${transaction.analytics.top.max-n:1000}") int maxTopN) {
+        this.transactionRepository = transactionRepository;
+        this.mapper = mapper;
+        this.countIndex = countIndex;
+        this.meterRegistry = meterRegistry;
+        this.partitions = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.pageSize = pageSize;
+        this.maxWindowBuckets = maxWindowBuckets;
+        this.maxTopN = maxTopN;
+    }
+
+    @Override
+    public Flux<AttributeGroupDTO> groupBy(String attribute, String metric) {
+        return Flux.defer(() -> {
+            if (attribute == null || !ATTRIBUTE.matcher(attribute).matches()) {
+                return Flux.error(new InvalidRequestException("Invalid attribute: " + attribute));
+            }
+            Metric order = Metric.of(metric);
+            Timer.Sample sample = Timer.start();
+
+            return transactionRepository.findIdRange()
+                .flatMapMany(range -> Flux.fromIterable(partition(range)))
+                .flatMap(partition -> aggregate(partition, attribute), partitions)
+                .reduce(GroupAggregate::merge)
+                .flatMapIterable(aggregate -> aggregate.toGroups(order))
+                .doOnComplete(() -> sample.stop(meterRegistry.timer("analytics.group-by.time", "metric", order.parameter)));
+        });
+    }
+
+    @Override
+    public Mono<WindowSummaryDTO> window(LocalDateTime from, LocalDateTime to, String granularity) {
+        return Mono.defer(() -> {
+            Window window = resolveWindow(from, to, granularity);
+            String size = window.granularity().name();
+            Timer.Sample sample = Timer.start();
+
+            return Mono.zip(
+                    transactionRepository.getTotalCostPerCustomerInWindow(size, window.start(), window.end())
+                        .map(mapper::customerTransactionRecordToDto)
+                        .collectList(),
+                    transactionRepository.getTotalCostPerProductInWindow(size, window.start(), window.end())
+                        .map(mapper::productTransactionRecordToDto)
+                        .collectList())
+                .map(totals -> new WindowSummaryDTO(window.start(), window.end(), window.granularity(),
+                    totals.getT1(), totals.getT2()))
+                .doOnSuccess(summary -> sample.stop(meterRegistry.timer("analytics.window.time",
+                    "granularity", size.toLowerCase())));
+        });
+    }
+
+    @Override
+    public Flux<TopCustomerDTO> topCustomers(Integer n, String by, LocalDateTime from, LocalDateTime to, String granularity) {
+        return Flux.defer(() -> {
+            int limit = topLimit(n);
+            Ranking ranking = Ranking.of(by);
+            Flux<CustomerTotalsRecord> totals = from == null && to == null
+                ? transactionRepository.getCustomerTotals()
+                : inWindow(from, to, granularity, window -> transactionRepository.getCustomerTotalsInWindow(
+                    window.granularity().name(), window.start(), window.end()));
+            Comparator<CustomerTotalsRecord> order = ranking
+                .<CustomerTotalsRecord>order(CustomerTotalsRecord::total_cost_cents, CustomerTotalsRecord::transaction_count)
+                .thenComparing(CustomerTotalsRecord::customer_id, Comparator.reverseOrder());
+            return top(totals, limit, order).map(mapper::customerTotalsRecordToDto);
+        });
+    }
+
+    @Override
+    public Flux<TopProductDTO> topProducts(Integer n, String by, LocalDateTime from, LocalDateTime to, String granularity) {
+        return Flux.defer(() -> {
+            int limit = topLimit(n);
+            Ranking ranking = Ranking.of(by);
+            Flux<ProductTotalsRecord> totals = from == null && to == null
+                ? transactionRepository.getProductTotals()
+                : inWindow(from, to, granularity, window -> transactionRepository.getProductTotalsInWindow(
+                    window.granularity().name(), window.start(), window.end()));
+            Comparator<ProductTotalsRecord> order = ranking
+                .<ProductTotalsRecord>order(ProductTotalsRecord::total_cost_cents, ProductTotalsRecord::transaction_count)
+                .thenComparing(ProductTotalsRecord::product_code, Comparator.reverseOrder());
+            return top(totals, limit, order).map(mapper::productTotalsRecordToDto);
+        });
+    }
+
+    @Override
+    public Mono<Long> count(String location, String productCode, String format, String status) {
+        return Mono.fromSupplier(() -> {
+            Map<Dimension, String> filters = new EnumMap<>(Dimension.class);
+            addFilter(filters, Dimension.LOCATION, location);
+            addFilter(filters, Dimension.PRODUCT, productCode);
+            addFilter(filters, Dimension.FORMAT, format);
+            addFilter(filters, Dimension.STATUS, status);
+            return countIndex.count(filters);
+        });
+    }
+
+    /**
+     * Keep the n best rows in a min-heap whose head is the worst of them, so each row costs at most
+     * O(log n) and only n rows are ever held; the survivors are sorted best first at the end.
+     */
+    private static <T> Flux<T> top(Flux<T> rows, int n, Comparator<T> order) {
+        return rows
+            .collect(() -> new PriorityQueue<>(n + 1, order), (PriorityQueue<T> heap, T row) -> {
+                if (heap.size() < n) {
+                    heap.offer(row);
+                } else if (order.compare(row, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.offer(row);
+                }
+            })
+            .flatMapIterable(heap -> {
+                List<T> best = new ArrayList<>(heap);
+                best.sort(order.reversed());
+                return best;
+            });
+    }
+
+    private int topLimit(Integer n) {
+        if (n == null || n < 1 || n > maxTopN) {
+            throw new InvalidRequestException("n must be between 1 and " + maxTopN + ": " + n);
+        }
+        return n;
+    }
+
+    private <T> Flux<T> inWindow(LocalDateTime from, LocalDateTime to, String granularity, Function<Window, Flux<T>> query) {
+        return query.apply(resolveWindow(from, to, granularity));
+    }
+
+    /**
+     * Round a requested window out to whole buckets of its granularity, and check that it is
+     * neither empty nor longer than the bucket limit
+     */
+    private Window resolveWindow(LocalDateTime from, LocalDateTime to, String granularity) {
+        Granularity size = Granularity.of(granularity);
+        if (from == null) {
+            throw new InvalidRequestException("Missing window start");
+        }
+        LocalDateTime start = size.bucketStart(from);
+        LocalDateTime end = size.bucketEnd(to != null ? to : LocalDateTime.now());
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("Window start must be before its end");
+        }
+        if (size.bucketsBetween(start, end) > maxWindowBuckets) {
+            throw new InvalidRequestException(
+                "Window spans more than " + maxWindowBuckets + " " + size.name().toLowerCase() + " buckets");
+        }
+        return new Window(size, start, end);
+    }
+
+    private static void addFilter(Map<Dimension, String> filters, Dimension dimension, String value) {
+        if (value != null && !value.isBlank()) {
+            filters.put(dimension, value);
+        }
+    }
+
+    private List<IdRange> partition(IdRange range) {
+        long span = range.lastId() - range.firstId() + 1;
+        long size = Math.max(1, (span + partitions - 1) / partitions);
+        List<IdRange> ranges = new ArrayList<>(partitions);
+        // Partition bounds are exclusive/inclusive: (afterId, lastId]
+        for (long after = range.firstId() - 1; after < range.lastId(); after += size) {
+            ranges.add(new IdRange(after, Math.min(after + size, range.lastId())));
+        }
+        return ranges;
+    }
+
+    private Mono<GroupAggregate> aggregate(IdRange partition, String attribute) {
+        return scan(partition)
+            .publishOn(Schedulers.parallel())
+            .reduceWith(GroupAggregate::new, (aggregate, costed) -> aggregate.add(
+                readAttribute(costed.transaction().getPayload(), attribute),
+                costed.transaction().getQuantity(),
+                costed.unitCostCents()));
+    }
+
+    // Keyset pagination: each page starts after the last id of the previous one
+    private Flux<CostedTransaction> scan(IdRange partition) {
+        return page(partition.firstId(), partition.lastId())
+            .expand(rows -> rows.size() < pageSize
+                ? Mono.empty()
+                : page(rows.get(rows.size() - 1).transaction().getId(), partition.lastId()))
+            .flatMapIterable(rows -> rows);
+    }
+
+    private Mono<List<CostedTransaction>> page(long afterId, long lastId) {
+        return transactionRepository.scanPage(afterId, lastId, pageSize).collectList();
+    }
+
+    private static String readAttribute(TransactionPayload payload, String attribute) {
+        if (payload == null) {
+            return null;
+        }
+        String text = payload.getString(attribute);
+        if (text != null) {
+            return text;
+        }
+        // Integral numbers group as written and fractional ones keep their decimals, so 12.5 and 12.9 stay apart
+        Number number = payload.getNumber(attribute);
+        if (number != null) {
+            return number.toString();
+        }
+        Boolean flag = payload.getBoolean(attribute);
+        return flag != null ? flag.toString() : null;
+    }
+
+    private record Window(Granularity granularity, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private enum Ranking {
+        SPEND("spend"),
+        COUNT("count");
+
+        private final String parameter;
+
+        Ranking(String parameter) {
+            this.parameter = parameter;
+        }
+
+        // Orders rows from lowest to highest; the other metric breaks ties
+        <T> Comparator<T> order(ToLongFunction<T> totalCostCents, ToLongFunction<T> transactionCount) {
+            return this == SPEND
+                ? Comparator.comparingLong(totalCostCents).thenComparingLong(transactionCount)
+                : Comparator.comparingLong(transactionCount).thenComparingLong(totalCostCents);
+        }
+
+        static Ranking of(String name) {
+            for (Ranking ranking : values()) {
+                if (ranking.parameter.equalsIgnoreCase(name)) {
+                    return ranking;
+                }
+            }
+            throw new InvalidRequestException("Invalid ranking: " + name);
+        }
+    }
+
+    private enum Metric {
+        TOTAL_COST("total_cost", totals -> totals[2]),
+        TRANSACTION_COUNT("transaction_count", totals -> totals[0]),
+        TOTAL_QUANTITY("total_quantity", totals -> totals[1]);
+
+        private final String parameter;
+        private final ToLongFunction<long[]> value;
+
+        Metric(String parameter, ToLongFunction<long[]> value) {
+            this.parameter = parameter;
+            this.value = value;
+        }
+
+        static Metric of(String name) {
+            for (Metric metric : values()) {
+                if (metric.parameter.equalsIgnoreCase(name)) {
+                    return metric;
+                }
+            }
+            throw new InvalidRequestException("Invalid metric: " + name);
+        }
+    }
+
+    /**
+     * Per-value totals of one partition: transaction count, quantity and cost in cents
+     */
+    private static final class GroupAggregate {
+
+        private final Map<String, long[]> totals = new HashMap<>();
+
+        GroupAggregate add(String value, Integer quantity, long unitCostCents) {
+            long[] group = totals.computeIfAbsent(value, key -> new long[3]);
+            long units = quantity == null ? 0 : quantity;
+            group[0]++;
+            group[1] += units;
+            group[2] = Math.addExact(group[2], Math.multiplyExact(units, unitCostCents));
+            return this;
+        }
+
+        GroupAggregate merge(GroupAggregate other) {
+            other.totals.forEach((value, partial) -> {
+                long[] group = totals.computeIfAbsent(value, key -> new long[3]);
+                group[0] += partial[0];
+                group[1] += partial[1];
+                group[2] = Math.addExact(group[2], partial[2]);
+            });
+            return this;
+        }
+
+        List<AttributeGroupDTO> toGroups(Metric order) {
+            return totals.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, long[]>>comparingLong(entry -> order.value.applyAsLong(entry.getValue()))
+                    .reversed()
+                    .thenComparing(Map.Entry::getKey, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(entry -> new AttributeGroupDTO(entry.getKey(), entry.getValue()[0], entry.getValue()[1], entry.getValue()[2]))
+                .toList();
+        }
+    }
+}
@@ -1,36 +1,49 @@
 package com.tabcorp.transaction.management.service.impl;
 
+import com.tabcorp.transaction.management.cache.ProductReference;
+import com.tabcorp.transaction.management.cache.ReferenceDataCache;
+import com.tabcorp.transaction.management.cache.ReferenceDataSnapshot;
+import com.tabcorp.transaction.management.cache.TransactionCountIndex;
+import com.tabcorp.transaction.management.cache.TransactionSummaryCache;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.ProductTransactionSummaryRecord;
+import com.tabcorp.transaction.management.dto.TransactionValidationResult;
 import com.tabcorp.transaction.management.entity.Product;
 import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.exception.InvalidRequestException;
 import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import com.tabcorp.transaction.management.payload.PayloadAttributePromoter;
+import com.tabcorp.transaction.management.pipeline.KeyedLaneExecutor;
+import com.tabcorp.transaction.management.repository.TransactionBatchWriter;
 import com.tabcorp.transaction.management.repository.TransactionRepository;
-import com.tabcorp.transaction.management.repository.CustomerRepository;
-import com.tabcorp.transaction.management.repository.ProductRepository;
 import com.tabcorp.transaction.management.service.TransactionService;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import jakarta.annotation.PostConstruct;
 
 @Service
@@ -38,20 +51,28 @@ import jakarta.annotation.PostConstruct;
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final long MAX_TOTAL_COST_CENTS = 500_000;
+    private static final Mono<Boolean> KNOWN_CUSTOMER = Mono.just(true);
+
     private final TransactionRepository transactionRepository;
-    private final CustomerRepository customerRepository;
-    private final ProductRepository productRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ReferenceDataSnapshot referenceDataSnapshot;
     private final MeterRegistry meterRegistry;
+    private final KeyedLaneExecutor laneExecutor;
+    private final TransactionBatchWriter batchWriter;
+    private final PayloadAttributePromoter attributePromoter;
+    private final TransactionSummaryCache summaryCache;
+    private final TransactionCountIndex countIndex;
     private final TransactionSummaryMapper mapper;
 
     @Value("${transaction.processing.timeout:5}")
     private int processingTimeoutSeconds;
 
-    @Value("${transaction.batch.size:100}")
-    private int batchSize;
+    @Value("${kafka.consumer.persist-retries:3}")
+    private int persistRetries;
 
-    @Value("${transaction.parallel.threads:3}")
-    private int parallelThreads;
+    @Value("${transaction.stream.page-size:500}")
+    private int streamPageSize;
 
     private Timer processingTimer;
 
@@ -65,35 +86,32 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     @CircuitBreaker(name = "processJsonTransactions")
     @Bulkhead(name = "processJsonTransactions")
-    @CacheEvict(value = "transactionSummaryCache", allEntries = true)
     public Mono<List<Transaction>> processJsonTransactions(List<Transaction> transactions) {
-        return processTransactionBatch(transactions, "JSON");
+        return processTransactionBatch(transactions, "JSON")
+            .doOnNext(this::onStored);
     }
 
     @Override
     @CircuitBreaker(name = "processBsonTransactions")
     @Bulkhead(name = "processBsonTransactions")
-    @CacheEvict(value = "transactionSummaryCache", allEntries = true)
     public Mono<List<Transaction>> processBsonTransactions(List<Transaction> transactions) {
-        return processTransactionBatch(transactions, "BSON");
+        return processTransactionBatch(transactions, "BSON")
+            .doOnNext(this::onStored);
     }
 
+    /**
+     * Process a batch on the customer lanes. Each lane receives the batch's transactions for its
+     * customers in their original order, validates them as one set-based sub-batch, enriches the
+     * valid ones and hands them to the batch writer in that same order, so a customer's transactions
+     * are never reordered while different lanes run in parallel. Null entries, left by records that
+     * could not be deserialized, are counted and dropped before the batch is sharded.
+     */
     public Mono<List<Transaction>> processTransactionBatch(List<Transaction> transactions, String format) {
         Timer.Sample timer = Timer.start();
 
-        return Flux.fromIterable(transactions)
-            .buffer(batchSize)  // Create sub-batches for optimal processing
-            .parallel(parallelThreads)
-            .runOn(Schedulers.boundedElastic())
-            .flatMap(batch -> Flux.fromIterable(batch)
-                .flatMap(transaction -> processTransaction(transaction)
-                    .timeout(Duration.ofSeconds(processingTimeoutSeconds))
-                    .doOnSuccess(t -> incrementSuccessMetric(format))
-                    .doOnError(error -> handleProcessingError(error, format))
-                    .onErrorResume(error -> handleTransactionError(error, transaction))
-                )
-            )
-            .sequential()
+        return Flux.fromIterable(laneExecutor.partition(withoutNulls(transactions, format), Transaction::getCustomerId))
+            .flatMap(laneBatch -> laneExecutor.submit(laneBatch.get(0).getCustomerId(), () -> processLane(laneBatch, format)))
+            .flatMapIterable(processed -> processed)
             .collectList()
             .doFinally(signalType -> {
                 timer.stop(processingTimer);
@@ -101,8 +119,58 @@ public class TransactionServiceImpl implements TransactionService {
             });
     }
 
+    /**
+     * Validate, enrich and save one lane's sub-batch. Failures are retried here, on the lane, rather
+     * than by re-submitting the whole poll, and only the reference data lookups are retried: they have
+     * no side effects, while rows the writer could not store have already been retried one by one and
+     * saving the sub-batch again would store its committed rows twice. A lane that still fails ends
+     * the batch with its error, so the batch is not acknowledged and its records are redelivered.
+     */
+    private Mono<List<Transaction>> processLane(List<Transaction> laneBatch, String format) {
+        return Mono.defer(() -> validateTransactions(laneBatch))
+            .retryWhen(Retry.fixedDelay(persistRetries, Duration.ofSeconds(1)))
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(result -> result.isValid()
+                ? enrichTransactionData(result.transaction())
+                : rejectTransaction(result, format))
+            .collectList()
+            .flatMapMany(valid -> saveTransactions(valid, format))
+            .collectList()
+            .doOnError(error -> {
+                log.error("Failed to process {} {} transactions of a lane: {}", laneBatch.size(), format, error.getMessage());
+                handleProcessingError(error, format);
+            });
+    }
+
+    private List<Transaction> withoutNulls(List<Transaction> transactions, String format) {
+        List<Transaction> present = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction != null) {
+                present.add(transaction);
+            }
+        }
+        int dropped = transactions.size() - present.size();
+        if (dropped > 0) {
+            log.error("Skipping {} null {} transactions", dropped, format);
+            meterRegistry.counter("transaction.validation.error").increment(dropped);
+        }
+        return present;
+    }
+
+    // Everything derived from the stored transactions is brought up to date once they are committed
+    private void onStored(List<Transaction> stored) {
+        summaryCache.invalidate(stored);
+        countIndex.record(stored);
+    }
+
+    private Mono<Transaction> rejectTransaction(TransactionValidationResult result, String format) {
+        ValidationException error = new ValidationException(result.error());
+        log.error("Validation failed: {}", result.error());
+        handleProcessingError(error, format);
+        return handleTransactionError(error, result.transaction());
+    }
+
     @Override
-    @CacheEvict(value = "transactionVolumeCache", allEntries = true)
     public Mono<Transaction> processTransaction(Transaction transaction) {
         return validateTransaction(transaction)
             .flatMap(this::enrichTransactionData)
@@ -111,6 +179,7 @@ public class TransactionServiceImpl implements TransactionService {
             .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
                 .filter(throwable -> !(throwable instanceof ValidationException))
             )
+            .doOnNext(t -> onStored(List.of(t)))
             .doOnSuccess(t -> log.debug("Transaction processed successfully: {}", t.getId()))
             .doOnError(error -> log.error("Transaction processing failed: {}", error.getMessage()));
     }
@@ -122,12 +191,9 @@ public class TransactionServiceImpl implements TransactionService {
             return Mono.error(new ValidationException("Transaction cannot be null"));
         }
 
-        // Create a composite validation error to collect all validation errors
-        List<String> validationErrors = new ArrayList<>();
-
         return Mono.just(transaction)
             // Validate customer exists
-            .flatMap(t -> validateCustomerExists(t.getCustomerId())
+            .flatMap(t -> customerExists(t.getCustomerId())
                 .flatMap(exists -> {
                     if (!exists) {
                         return Mono.error(new ValidationException("Invalid customer: " + t.getCustomerId()));
@@ -135,52 +201,190 @@ public class TransactionServiceImpl implements TransactionService {
                     return Mono.just(t);
                 })
             )
-            // Validate product exists and is active
-            .flatMap(t -> getProductById(t.getProductCode())
+            // Validate product exists and is active, then quantity, cost and date
+            .flatMap(t -> findProduct(t.getProductCode())
                 .switchIfEmpty(Mono.error(new ValidationException("Product not found: " + t.getProductCode())))
                 .flatMap(product -> {
-                    if (!"ACTIVE".equals(product.getStatus())) {
-                        return Mono.error(new ValidationException("Product is not active: " + t.getProductCode()));
-                    }
-
-                    // Calculate total cost (for validation only, not stored in entity)
-                    BigDecimal totalCost = product.getCost().multiply(BigDecimal.valueOf(t.getQuantity()));
-
-                    // Validate total cost does not exceed 5000
-                    if (totalCost.compareTo(BigDecimal.valueOf(5000)) > 0) {
-                        return Mono.error(new ValidationException("Total cost cannot exceed 5000. Current total: " + totalCost));
+                    String error = validationError(t, true, product);
+                    if (error != null) {
+                        return Mono.error(new ValidationException(error));
                     }
-
+                    t.setUnitCostCents(product.costCents());
                     return Mono.just(t);
                 })
             )
-            // Validate quantity
-            .filter(t -> t.getQuantity() > 0)
-            .switchIfEmpty(Mono.error(new ValidationException("Quantity must be greater than 0")))
-            // Validate transaction date is not in the past
-            .filter(t -> t.getTransactionTime() == null || !t.getTransactionTime().isBefore(LocalDateTime.now()))
-            .switchIfEmpty(Mono.error(new ValidationException("Transaction date cannot be in the past")))
             .timeout(Duration.ofSeconds(processingTimeoutSeconds))
             .doOnError(error -> log.error("Validation failed: {}", error.getMessage()));
     }
 
+    @Override
+    public Mono<List<TransactionValidationResult>> validateTransactions(List<Transaction> transactions) {
+        // Only references missing from the snapshot are looked up, with one bulk cache lookup per type
+        Set<Integer> customerIds = new HashSet<>();
+        Set<String> productCodes = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            if (transaction == null) {
+                continue;
+            }
+            if (transaction.getCustomerId() != null && !referenceDataSnapshot.containsCustomer(transaction.getCustomerId())) {
+                customerIds.add(transaction.getCustomerId());
+            }
+            if (transaction.getProductCode() != null && referenceDataSnapshot.getProduct(transaction.getProductCode()) == null) {
+                productCodes.add(transaction.getProductCode());
+            }
+        }
+
+        Mono<Set<Integer>> existingCustomers = customerIds.isEmpty()
+            ? Mono.just(Set.of())
+            : referenceDataCache.existingCustomers(customerIds);
+        Mono<Map<String, Product>> products = productCodes.isEmpty()
+            ? Mono.just(Map.of())
+            : referenceDataCache.getProducts(productCodes);
+
+        return Mono.zip(existingCustomers, products)
+            .map(references -> {
+                List<TransactionValidationResult> results = new ArrayList<>(transactions.size());
+                for (Transaction transaction : transactions) {
+                    results.add(validateAgainst(transaction, references.getT1(), references.getT2()));
+                }
+                return results;
+            })
+            .timeout(Duration.ofSeconds(processingTimeoutSeconds))
+            .doOnError(error -> log.error("Batch validation failed: {}", error.getMessage()));
+    }
+
+    private TransactionValidationResult validateAgainst(Transaction transaction, Set<Integer> existingCustomers,
+                                                        Map<String, Product> products) {
+        if (transaction == null) {
+            return TransactionValidationResult.invalid(null, "Transaction cannot be null");
+        }
+        Integer customerId = transaction.getCustomerId();
+        boolean customerExists = customerId != null
+            && (referenceDataSnapshot.containsCustomer(customerId) || existingCustomers.contains(customerId));
+
+        String productCode = transaction.getProductCode();
+        ProductReference product = referenceDataSnapshot.getProduct(productCode);
+        if (product == null && productCode != null && products.containsKey(productCode)) {
+            product = ProductReference.of(products.get(productCode));
+        }
+
+        String error = validationError(transaction, customerExists, product);
+        if (error != null) {
+            return TransactionValidationResult.invalid(transaction, error);
+        }
+        transaction.setUnitCostCents(product.costCents());
+        return TransactionValidationResult.valid(transaction);
+    }
+
+    /**
+     * Apply the validation rules to a transaction whose references have been resolved
+     * @return the first validation error, or null if the transaction is valid
+     */
+    private String validationError(Transaction transaction, boolean customerExists, ProductReference product) {
+        if (!customerExists) {
+            return "Invalid customer: " + transaction.getCustomerId();
+        }
+        if (product == null) {
+            return "Product not found: " + transaction.getProductCode();
+        }
+        if (transaction.getQuantity() == null || transaction.getQuantity() <= 0) {
+            return "Quantity must be greater than 0";
+        }
+        if (!product.active()) {
+            return "Product is not active: " + transaction.getProductCode();
+        }
+        // Compare in cents; dividing the limit by the unit cost avoids overflowing on large quantities
+        if (product.costCents() > 0 && transaction.getQuantity() > MAX_TOTAL_COST_CENTS / product.costCents()) {
+            return "Total cost cannot exceed 5000. Current total: " + product.totalCost(transaction.getQuantity());
+        }
+        if (isInPast(transaction)) {
+            return "Transaction date cannot be in the past";
+        }
+        return null;
+    }
+
+    /**
+     * Customer existence from the snapshot, falling back to the cache for customers it does not hold
+     */
+    private Mono<Boolean> customerExists(Integer customerId) {
+        if (referenceDataSnapshot.containsCustomer(customerId)) {
+            return KNOWN_CUSTOMER;
+        }
+        return referenceDataCache.customerExists(customerId);
+    }
+
+    /**
+     * Product from the snapshot, falling back to the cache for products it does not hold
+     */
+    private Mono<ProductReference> findProduct(String productCode) {
+        ProductReference product = referenceDataSnapshot.getProduct(productCode);
+        if (product != null) {
+            return Mono.just(product);
+        }
+        return referenceDataCache.getProduct(productCode).map(ProductReference::of);
+    }
+
+    private boolean isInPast(Transaction transaction) {
+        return transaction.getTransactionTime() != null && transaction.getTransactionTime().isBefore(LocalDateTime.now());
+    }
+
     private Mono<Transaction> enrichTransactionData(Transaction transaction) {
         return Mono.just(transaction)
             .map(t -> {
                 t.setProcessedTime(LocalDateTime.now());
                 t.setStatus("PROCESSED");
+                promoteAttributes(t);
                 return t;
             });
     }
 
-    @CachePut(value = "transactionCache", key = "#transaction.id")
+    // A payload that cannot be read is stored without promoted attributes rather than failing its lane
+    private void promoteAttributes(Transaction transaction) {
+        try {
+            attributePromoter.promote(transaction);
+        } catch (RuntimeException e) {
+            transaction.setCurrency(null);
+            transaction.setPaymentMethod(null);
+            transaction.setChannel(null);
+            meterRegistry.counter("transaction.attribute-promotion.failed").increment();
+            log.warn("Storing transaction of customer {} without promoted attributes, its payload cannot be read: {}",
+                transaction.getCustomerId(), e.getMessage());
+        }
+    }
+
     private Mono<Transaction> saveTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction)
+        return batchWriter.write(transaction)
             .timeout(Duration.ofSeconds(processingTimeoutSeconds))
             .doOnSuccess(t -> log.debug("Transaction saved: {}", t.getId()))
             .doOnError(error -> log.error("Failed to save transaction: {}", error.getMessage()));
     }
 
+    /**
+     * Insert validated transactions through the batch writer. The writer already retries the rows
+     * of a failed flush one by one, so a row that still fails is not queued again, which would also
+     * place it behind later transactions of its customer. Rows the database rejects as invalid are
+     * reported and dropped like validation failures; any other failure, such as the database being
+     * unavailable, is passed on so the batch is redelivered.
+     */
+    private Flux<Transaction> saveTransactions(List<Transaction> transactions, String format) {
+        if (transactions.isEmpty()) {
+            return Flux.empty();
+        }
+        return batchWriter.writeAll(transactions)
+            .timeout(Duration.ofSeconds(processingTimeoutSeconds))
+            .doOnNext(t -> incrementSuccessMetric(format))
+            .doOnComplete(() -> log.debug("Saved {} transactions", transactions.size()))
+            .onErrorResume(TransactionServiceImpl::isRejectedRow, error -> {
+                handleProcessingError(error, format);
+                return Flux.empty();
+            });
+    }
+
+    private static boolean isRejectedRow(Throwable error) {
+        return Exceptions.unwrapMultiple(error).stream().allMatch(cause ->
+            cause instanceof DataIntegrityViolationException || cause instanceof R2dbcDataIntegrityViolationException);
+    }
+
     private void incrementSuccessMetric(String format) {
         meterRegistry.counter("transaction.success", "format", format.toLowerCase()).increment();
     }
@@ -209,54 +413,86 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
-    /**
-     * Cache customer existence check
-     * @param customerId Customer ID to check
-     * @return Mono<Boolean> indicating if customer exists
-     */
-    @Cacheable(value = "customerCache", key = "#customerId")
-    private Mono<Boolean> validateCustomerExists(Integer customerId) {
-        log.debug("Checking customer existence (not from cache): {}", customerId);
-        return customerRepository.existsById(customerId);
-    }
-
-    /**
-     * Cache product retrieval
-     * @param productCode Product code to retrieve
-     * @return Mono containing the product if found
-     */
-    @Cacheable(value = "productCache", key = "#productCode")
-    private Mono<Product> getProductById(String productCode) {
-        log.debug("Retrieving product (not from cache): {}", productCode);
-        return productRepository.findById(productCode);
-    }
-
     /**
      * Get totals per customer with caching
      * @return Flux of customer transaction summaries
      */
-    @Cacheable(value = "transactionSummaryCache", key = "'customerSummary'")
     public Flux<CustomerTransactionSummaryDTO> getCachedTotalCostPerCustomer() {
-        log.debug("Getting total cost per customer (not from cache)");
-        return transactionRepository.getTotalCostPerCustomer()
-            .doOnNext(record -> log.debug("Received record : {}", record))
-            .flatMap(record -> mapper.customerTransactionRecordToDtoReactive(record))
-            .doOnNext(dto -> log.debug("Completed fetching and mapping customer transaction summaries : {}", dto))
-            .doOnError(error -> log.error("Error while fetching or mapping customer transaction summaries", error));
+        return summaryCache.customerSummaries();
     }
 
     /**
      * Get totals per product with caching
      * @return Flux of product transaction summaries
      */
-    @Cacheable(value = "transactionSummaryCache", key = "'productSummary'")
     public Flux<ProductTransactionSummaryDTO> getCachedTotalCostPerProduct() {
-        log.debug("Getting total cost per product (not from cache)");
-        return transactionRepository.getTotalCostPerProduct()
-            .doOnNext(record -> log.info("Received record : {}", record))
-            .flatMap(record -> mapper.productTransactionRecordToDtoReactive(record))
-            .doOnNext(dto -> log.info("Completed fetching and mapping product transaction summaries : {}", dto))
-            .doOnError(error -> log.error("Error while fetching or mapping product transaction summaries", error));
+        return summaryCache.productSummaries();
+    }
+
+    @Override
+    public Mono<EncodedResponse> getEncodedTotalCostPerCustomer() {
+        return summaryCache.encodedCustomerSummaries();
     }
 
+    @Override
+    public Mono<EncodedResponse> getEncodedTotalCostPerProduct() {
+        return summaryCache.encodedProductSummaries();
+    }
+
+    @Override
+    public Mono<CustomerTransactionSummaryDTO> getCachedCustomerSummary(Integer customerId) {
+        return summaryCache.customerSummary(customerId);
+    }
+
+    @Override
+    public Mono<ProductTransactionSummaryDTO> getCachedProductSummary(String productCode) {
+        return summaryCache.productSummary(productCode);
+    }
+
+    @Override
+    public Flux<CustomerTransactionSummaryDTO> streamTotalCostPerCustomer(Integer afterCustomerId, Integer limit) {
+        return Flux.defer(() -> keysetPages(afterCustomerId == null ? Integer.MIN_VALUE : afterCustomerId, pageLimit(limit),
+                transactionRepository::streamTotalCostPerCustomer, row -> row.customer_id().intValue())
+            .map(mapper::customerTransactionRecordToDto));
+    }
+
+    @Override
+    public Flux<ProductTransactionSummaryDTO> streamTotalCostPerProduct(String afterProductCode, Integer limit) {
+        return Flux.defer(() -> keysetPages(afterProductCode == null ? "" : afterProductCode, pageLimit(limit),
+                transactionRepository::streamTotalCostPerProduct, ProductTransactionSummaryRecord::product_code)
+            .map(mapper::productTransactionRecordToDto));
+    }
+
+    /**
+     * Read rows in pages of at most streamPageSize, each page after the last key of the previous one.
+     * A page is read in full before it is emitted, and at most one page is read ahead of the client,
+     * so no query holds a pooled connection while a slow client reads.
+     */
+    private <R, K> Flux<R> keysetPages(K after, int limit, BiFunction<K, Integer, Flux<R>> page, Function<R, K> key) {
+        return readPage(after, limit, page)
+            .expand(read -> read.rows().size() < read.requested() || read.remaining() == 0
+                ? Mono.empty()
+                : readPage(key.apply(read.rows().get(read.rows().size() - 1)), read.remaining(), page))
+            .concatMapIterable(KeysetPage::rows, 1);
+    }
+
+    private <R, K> Mono<KeysetPage<R>> readPage(K after, int remaining, BiFunction<K, Integer, Flux<R>> page) {
+        int requested = Math.min(remaining, streamPageSize);
+        return page.apply(after, requested)
+            .collectList()
+            .map(rows -> new KeysetPage<>(rows, requested, remaining - rows.size()));
+    }
+
+    private record KeysetPage<R>(List<R> rows, int requested, int remaining) {
+    }
+
+    private static int pageLimit(Integer limit) {
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (limit < 1) {
+            throw new InvalidRequestException("Invalid limit: " + limit);
+        }
+        return limit;
+    }
 }
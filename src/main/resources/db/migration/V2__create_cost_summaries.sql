@@ -0,0 +1,20 @@
+-- Running totals per customer and per product, kept up to date as transactions are inserted
+-- and rebuilt from CUSTOMER_TRANSACTION at startup. Totals are exact integer cents.
+
+-- Unit cost of the product when the transaction was stored, so a later price change does not
+-- reprice it; existing rows take the current price
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN unit_cost_cents BIGINT;
+UPDATE CUSTOMER_TRANSACTION t SET unit_cost_cents =
+    (SELECT CAST(p.cost * 100 AS BIGINT) FROM PRODUCT p WHERE p.product_code = t.product_code);
+
+CREATE TABLE CUSTOMER_COST_SUMMARY (
+    customer_id INT PRIMARY KEY,
+    total_cost_cents BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL
+);
+
+CREATE TABLE PRODUCT_COST_SUMMARY (
+    product_code VARCHAR(20) PRIMARY KEY,
+    total_cost_cents BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Store payloads in their native form: text as character data and BSON as raw bytes,
+-- tagged with their encoding so readers never have to inspect the content
+ALTER TABLE CUSTOMER_TRANSACTION ALTER COLUMN json_data SET DATA TYPE CHARACTER VARYING;
+ALTER TABLE CUSTOMER_TRANSACTION ALTER COLUMN bson_data SET DATA TYPE BINARY VARYING;
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN payload_encoding VARCHAR(10);
+
+UPDATE CUSTOMER_TRANSACTION SET payload_encoding = 'JSON' WHERE json_data IS NOT NULL;
+-- Existing rows on the BSON path may hold JSON text, as the V1 seed rows do. A BSON document always
+-- ends with a zero byte, so text between '{' and '}' is JSON.
+UPDATE CUSTOMER_TRANSACTION SET payload_encoding = 'JSON'
+WHERE json_data IS NULL AND bson_data IS NOT NULL
+AND SUBSTRING(bson_data FROM 1 FOR 1) = X'7B'
+AND SUBSTRING(bson_data FROM OCTET_LENGTH(bson_data) FOR 1) = X'7D';
+UPDATE CUSTOMER_TRANSACTION SET payload_encoding = 'BSON'
+WHERE json_data IS NULL AND bson_data IS NOT NULL AND payload_encoding IS NULL;
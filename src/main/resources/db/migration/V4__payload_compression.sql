@@ -0,0 +1,14 @@
+-- zstd dictionaries trained from stored payloads; rows compressed with a dictionary reference it by id
+CREATE TABLE PAYLOAD_DICTIONARY (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    codec VARCHAR(10) NOT NULL,
+    dictionary BINARY VARYING NOT NULL,
+    sample_count INT NOT NULL,
+    created_time TIMESTAMP NOT NULL
+);
+
+-- A compressed payload is held in bson_data; payload_encoding still describes the uncompressed bytes
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN payload_codec VARCHAR(10);
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN payload_dictionary_id INT;
+ALTER TABLE CUSTOMER_TRANSACTION ADD CONSTRAINT fk_transaction_payload_dictionary
+    FOREIGN KEY (payload_dictionary_id) REFERENCES PAYLOAD_DICTIONARY(id);
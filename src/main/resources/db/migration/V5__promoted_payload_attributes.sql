@@ -0,0 +1,9 @@
+-- Payload attributes copied into typed columns at ingest, so they can be filtered on through an index.
+-- Existing rows are filled in by PromotedAttributeBackfill at startup.
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN currency VARCHAR(10);
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN payment_method VARCHAR(50);
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN channel VARCHAR(50);
+
+CREATE INDEX idx_transaction_currency ON CUSTOMER_TRANSACTION(currency);
+CREATE INDEX idx_transaction_payment_method ON CUSTOMER_TRANSACTION(payment_method);
+CREATE INDEX idx_transaction_channel ON CUSTOMER_TRANSACTION(channel);
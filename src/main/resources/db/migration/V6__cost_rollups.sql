@@ -0,0 +1,20 @@
+-- Cost per customer and per product in minute, hour and day buckets of transaction_time, kept up to date
+-- as transactions are inserted and rebuilt from CUSTOMER_TRANSACTION at startup.
+-- bucket_start is transaction_time truncated to the granularity (MINUTE, HOUR or DAY).
+CREATE TABLE CUSTOMER_COST_ROLLUP (
+    granularity VARCHAR(6) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    customer_id INT NOT NULL,
+    total_cost_cents BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, customer_id)
+);
+
+CREATE TABLE PRODUCT_COST_ROLLUP (
+    granularity VARCHAR(6) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    product_code VARCHAR(20) NOT NULL,
+    total_cost_cents BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, product_code)
+);
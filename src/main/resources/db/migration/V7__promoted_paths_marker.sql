@@ -0,0 +1,6 @@
+-- Fingerprint of the promotion paths each row's promoted attributes were read with, so rows whose payload holds
+-- none of the paths are not read again by PromotedAttributeBackfill at every startup.
+-- Null until the row's payload has been read; existing rows are read once more and marked.
+ALTER TABLE CUSTOMER_TRANSACTION ADD COLUMN promoted_paths INT;
+
+CREATE INDEX idx_transaction_promoted_paths ON CUSTOMER_TRANSACTION(promoted_paths);
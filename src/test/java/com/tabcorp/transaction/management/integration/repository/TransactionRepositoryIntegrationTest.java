@@ -0,0 +1,191 @@
+package com.tabcorp.transaction.management.integration.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.integration.config.TestCacheConfiguration;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = {TestCacheConfiguration.class})
+@ActiveProfiles("test")
+public class TransactionRepositoryIntegrationTest {
+
+    private static final Duration ALLOWED_LATENESS = Duration.ofHours(1);
+    private static final LocalDateTime TRANSACTION_TIME = LocalDateTime.of(2025, 3, 15, 9, 0, 30);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        // Other integration tests share the in-memory database, so only rows this test owns are reset
+        List.of("DELETE FROM customer_transaction",
+                "DELETE FROM customer_cost_summary",
+                "DELETE FROM product_cost_summary",
+                "DELETE FROM customer_cost_rollup",
+                "DELETE FROM product_cost_rollup",
+                "MERGE INTO customer (customer_id, first_name, last_name, email, age, location) KEY (customer_id) " +
+                "VALUES (201, 'Repo', 'Customer 1', 'repo1@test.com', 30, 'Sydney')",
+                "MERGE INTO customer (customer_id, first_name, last_name, email, age, location) KEY (customer_id) " +
+                "VALUES (202, 'Repo', 'Customer 2', 'repo2@test.com', 40, 'Perth')",
+                "MERGE INTO product (product_code, cost, status) KEY (product_code) VALUES ('REPO_PROD_001', 12.34, 'ACTIVE')",
+                "MERGE INTO product (product_code, cost, status) KEY (product_code) VALUES ('REPO_PROD_002', 5.00, 'ACTIVE')")
+            .forEach(sql -> databaseClient.sql(sql).fetch().rowsUpdated().block());
+    }
+
+    @Test
+    void insertAll_multipleRows_setsGeneratedIdsInInputOrder() {
+        // Arrange
+        Transaction first = createTransaction(201, "REPO_PROD_001", 2, 1234L, TRANSACTION_TIME);
+        Transaction second = createTransaction(202, "REPO_PROD_002", 1, 500L, TRANSACTION_TIME);
+        Transaction third = createTransaction(201, "REPO_PROD_002", 3, 500L, TRANSACTION_TIME);
+
+        // Act & Assert
+        StepVerifier.create(transactionRepository.insertAll(List.of(first, second, third)))
+            .expectNext(first, second, third)
+            .verifyComplete();
+
+        assertNotNull(first.getId());
+        assertTrue(first.getId() < second.getId() && second.getId() < third.getId());
+        List<String> stored = databaseClient.sql(
+                "SELECT id, customer_id, product_code, quantity, unit_cost_cents FROM customer_transaction ORDER BY id")
+            .map(row -> row.get("id", Long.class) + "|" + row.get("customer_id", Integer.class) + "|"
+                + row.get("product_code", String.class) + "|" + row.get("quantity", Integer.class) + "|"
+                + row.get("unit_cost_cents", Long.class))
+            .all()
+            .collectList()
+            .block();
+        assertEquals(List.of(
+            first.getId() + "|201|REPO_PROD_001|2|1234",
+            second.getId() + "|202|REPO_PROD_002|1|500",
+            third.getId() + "|201|REPO_PROD_002|3|500"), stored);
+    }
+
+    @Test
+    void addToCostSummaries_matchesRebuild_evenAfterPriceChange() {
+        // Arrange
+        List<Transaction> transactions = List.of(
+            createTransaction(201, "REPO_PROD_001", 2, 1234L, TRANSACTION_TIME),
+            createTransaction(202, "REPO_PROD_001", 1, 1234L, TRANSACTION_TIME),
+            createTransaction(201, "REPO_PROD_002", 3, 500L, TRANSACTION_TIME));
+        transactionRepository.insertAll(transactions).then().block();
+
+        // Act
+        transactionRepository.addToCostSummaries(transactions).block();
+        List<String> incremental = readSummaries();
+        databaseClient.sql("UPDATE product SET cost = 99.99 WHERE product_code = 'REPO_PROD_001'").fetch().rowsUpdated().block();
+        transactionRepository.rebuildCostSummaries().block();
+        List<String> rebuilt = readSummaries();
+
+        // Assert
+        assertEquals(List.of(
+            "customer|201|3968|2",
+            "customer|202|1234|1",
+            "product|REPO_PROD_001|3702|2",
+            "product|REPO_PROD_002|1500|1"), incremental);
+        assertEquals(incremental, rebuilt);
+    }
+
+    @Test
+    void rebuildCostRollups_lateRows_matchesIncrementalRollups() {
+        // Arrange
+        Transaction onTime = createTransaction(201, "REPO_PROD_001", 2, 1234L, TRANSACTION_TIME);
+        onTime.setProcessedTime(TRANSACTION_TIME.plusMinutes(1));
+        Transaction atLimit = createTransaction(202, "REPO_PROD_002", 1, 500L, TRANSACTION_TIME.plusSeconds(10));
+        atLimit.setProcessedTime(atLimit.getTransactionTime().plus(ALLOWED_LATENESS));
+        Transaction unprocessed = createTransaction(201, "REPO_PROD_002", 4, 500L, TRANSACTION_TIME.plusHours(2));
+        unprocessed.setProcessedTime(null);
+        Transaction late = createTransaction(202, "REPO_PROD_001", 5, 1234L, TRANSACTION_TIME);
+        late.setProcessedTime(TRANSACTION_TIME.plus(ALLOWED_LATENESS).plusSeconds(1));
+        List<Transaction> transactions = List.of(onTime, atLimit, unprocessed, late);
+        transactionRepository.insertAll(transactions).then().block();
+
+        // Act
+        Integer lateCount = transactionRepository.addToCostRollups(transactions, ALLOWED_LATENESS).block();
+        List<String> incremental = readRollups();
+        transactionRepository.rebuildCostRollups(ALLOWED_LATENESS).block();
+        List<String> rebuilt = readRollups();
+
+        // Assert
+        assertEquals(1, lateCount);
+        assertTrue(incremental.contains("customer|MINUTE|2025-03-15T09:00|201|2468|1"));
+        assertTrue(incremental.contains("customer|DAY|2025-03-15T00:00|202|500|1"));
+        assertTrue(incremental.contains("product|HOUR|2025-03-15T11:00|REPO_PROD_002|2000|1"));
+        assertTrue(incremental.contains("product|DAY|2025-03-15T00:00|REPO_PROD_002|2500|2"));
+        assertEquals(16, incremental.size());
+        assertEquals(incremental, rebuilt);
+    }
+
+    private List<String> readSummaries() {
+        List<String> customers = databaseClient.sql(
+                "SELECT customer_id, total_cost_cents, transaction_count FROM customer_cost_summary ORDER BY customer_id")
+            .map(row -> "customer|" + row.get("customer_id", Integer.class) + "|"
+                + row.get("total_cost_cents", Long.class) + "|" + row.get("transaction_count", Long.class))
+            .all()
+            .collectList()
+            .block();
+        List<String> products = databaseClient.sql(
+                "SELECT product_code, total_cost_cents, transaction_count FROM product_cost_summary ORDER BY product_code")
+            .map(row -> "product|" + row.get("product_code", String.class) + "|"
+                + row.get("total_cost_cents", Long.class) + "|" + row.get("transaction_count", Long.class))
+            .all()
+            .collectList()
+            .block();
+        customers.addAll(products);
+        return customers;
+    }
+
+    private List<String> readRollups() {
+        List<String> customers = databaseClient.sql(
+                "SELECT granularity, bucket_start, customer_id, total_cost_cents, transaction_count " +
+                "FROM customer_cost_rollup ORDER BY granularity, bucket_start, customer_id")
+            .map(row -> "customer|" + row.get("granularity", String.class) + "|"
+                + row.get("bucket_start", LocalDateTime.class) + "|" + row.get("customer_id", Integer.class) + "|"
+                + row.get("total_cost_cents", Long.class) + "|" + row.get("transaction_count", Long.class))
+            .all()
+            .collectList()
+            .block();
+        List<String> products = databaseClient.sql(
+                "SELECT granularity, bucket_start, product_code, total_cost_cents, transaction_count " +
+                "FROM product_cost_rollup ORDER BY granularity, bucket_start, product_code")
+            .map(row -> "product|" + row.get("granularity", String.class) + "|"
+                + row.get("bucket_start", LocalDateTime.class) + "|" + row.get("product_code", String.class) + "|"
+                + row.get("total_cost_cents", Long.class) + "|" + row.get("transaction_count", Long.class))
+            .all()
+            .collectList()
+            .block();
+        customers.addAll(products);
+        return customers;
+    }
+
+    private Transaction createTransaction(Integer customerId, String productCode, Integer quantity,
+                                          Long unitCostCents, LocalDateTime transactionTime) {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(customerId);
+        transaction.setProductCode(productCode);
+        transaction.setQuantity(quantity);
+        transaction.setUnitCostCents(unitCostCents);
+        transaction.setTransactionTime(transactionTime);
+        transaction.setProcessedTime(transactionTime.plusSeconds(5));
+        transaction.setStatus("PROCESSED");
+        transaction.setDataFormat("JSON");
+        transaction.setJsonData("{\"currency\":\"AUD\"}");
+        return transaction;
+    }
+}
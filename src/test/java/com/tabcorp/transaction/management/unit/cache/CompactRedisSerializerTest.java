@@ -0,0 +1,69 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.tabcorp.transaction.management.cache.CompactRedisSerializer;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.entity.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json);
+
+    @Test
+    @DisplayName("Should round-trip products and summaries in fewer bytes than JSON")
+    void roundTrip_supportedTypes_smallerThanJson() {
+        // Arrange
+        Product product = new Product("PRODUCT_001", new BigDecimal("25.50"), "ACTIVE");
+        List<CustomerTransactionSummaryDTO> customers = List.of(
+            new CustomerTransactionSummaryDTO(1, "John", "Smith", 255_000L),
+            new CustomerTransactionSummaryDTO(2, "Zoë", null, null));
+        List<ProductTransactionSummaryDTO> products = List.of(
+            new ProductTransactionSummaryDTO("PRODUCT_001", "ACTIVE", -150L));
+
+        // Act & Assert
+        for (Object value : List.of(product, customers, products, Boolean.TRUE)) {
+            byte[] bytes = serializer.serialize(value);
+            assertEquals(value, serializer.deserialize(bytes));
+            assertTrue(bytes.length < json.serialize(value).length, () -> "not smaller: " + value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write other types as JSON and still read values written as JSON")
+    void fallback_otherTypesAndLegacyJson_useJson() {
+        // Arrange
+        Map<String, Object> other = Map.of("key", "value");
+        byte[] legacy = json.serialize(new Product("PRODUCT_002", BigDecimal.TEN, "INACTIVE"));
+
+        // Act & Assert
+        assertArrayEquals(json.serialize(other), serializer.serialize(other));
+        assertEquals(new Product("PRODUCT_002", BigDecimal.TEN, "INACTIVE"), serializer.deserialize(legacy));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown version or a truncated value")
+    void deserialize_unknownVersionOrTruncated_throws() {
+        // Arrange
+        byte[] valid = serializer.serialize(new Product("PRODUCT_003", BigDecimal.ONE, "ACTIVE"));
+        byte[] truncated = Arrays.copyOf(valid, valid.length - 2);
+        byte[] future = valid.clone();
+        future[0] = 2;
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(future));
+    }
+}
@@ -0,0 +1,50 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.tabcorp.transaction.management.cache.IntHashSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    @DisplayName("Should hold every added value across resizes and reject absent ones")
+    void add_manyValues_growsAndContainsAll() {
+        // Arrange
+        IntHashSet set = new IntHashSet(4);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            set.add(10_000 + i * 7);
+        }
+
+        // Assert
+        assertEquals(10_000, set.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.contains(10_000 + i * 7));
+            assertFalse(set.contains(10_001 + i * 7));
+        }
+    }
+
+    @Test
+    @DisplayName("Should treat zero, negatives and duplicates like any other value")
+    void add_edgeValues_handledCorrectly() {
+        // Arrange
+        IntHashSet set = new IntHashSet(0);
+
+        // Act & Assert
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertFalse(set.add(-1));
+
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertTrue(set.contains(Integer.MIN_VALUE));
+        assertFalse(set.contains(Integer.MAX_VALUE));
+        assertEquals(3, set.size());
+    }
+}
@@ -0,0 +1,212 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tabcorp.transaction.management.cache.CacheInvalidationBus;
+import com.tabcorp.transaction.management.cache.ReactiveCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private ReactiveCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cache = createCache(null);
+    }
+
+    @Test
+    @DisplayName("Should load a missing key once for concurrent callers")
+    void get_concurrentMisses_loadOnce() {
+        // Arrange
+        Sinks.One<String> load = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+        when(valueOperations.get("productNames::PRODUCT_001")).thenReturn(Mono.empty());
+        when(valueOperations.set("productNames::PRODUCT_001", "Widget", TTL)).thenReturn(Mono.just(true));
+
+        // Act
+        Mono<String> first = cache.get("PRODUCT_001", key -> {
+            loads.incrementAndGet();
+            return load.asMono();
+        });
+        Mono<String> second = cache.get("PRODUCT_001", key -> {
+            loads.incrementAndGet();
+            return Mono.just("Other");
+        });
+
+        // Assert
+        StepVerifier.create(Mono.zip(first, second))
+            .then(() -> load.tryEmitValue("Widget"))
+            .assertNext(pair -> {
+                assertEquals("Widget", pair.getT1());
+                assertEquals("Widget", pair.getT2());
+            })
+            .verifyComplete();
+        assertEquals(1, loads.get());
+        verify(valueOperations, times(1)).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should serve a Redis hit without loading, then serve it from L1")
+    void get_sharedHit_skipsLoaderAndFillsLocal() {
+        // Arrange
+        when(valueOperations.get("productNames::PRODUCT_002")).thenReturn(Mono.just("Gadget"));
+
+        // Act & Assert
+        StepVerifier.create(cache.get("PRODUCT_002", key -> Mono.error(new AssertionError("loader called"))))
+            .expectNext("Gadget")
+            .verifyComplete();
+        StepVerifier.create(cache.get("PRODUCT_002", key -> Mono.error(new AssertionError("loader called"))))
+            .expectNext("Gadget")
+            .verifyComplete();
+        verify(valueOperations, times(1)).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should read many keys with one MGET and write back only the loaded ones")
+    void getAll_partialHit_singleMgetAndWriteBack() {
+        // Arrange
+        when(valueOperations.multiGet(List.of("productNames::P1", "productNames::P2", "productNames::P3")))
+            .thenReturn(Mono.just(Arrays.asList("One", null, null)));
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        // Act & Assert
+        StepVerifier.create(cache.getAll(List.of("P1", "P2", "P3"), missing -> {
+                assertEquals(Set.of("P2", "P3"), missing);
+                return Mono.just(Map.of("P2", "Two", "P3", "Three"));
+            }))
+            .expectNext(Map.of("P1", "One", "P2", "Two", "P3", "Three"))
+            .verifyComplete();
+        verify(valueOperations).set("productNames::P2", "Two", TTL);
+        verify(valueOperations).set("productNames::P3", "Three", TTL);
+        verify(valueOperations, never()).set(eq("productNames::P1"), any(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the loader while Redis is unreachable")
+    void get_redisDown_usesLoader() {
+        // Arrange
+        when(valueOperations.get(anyString())).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(valueOperations.set(anyString(), any(), any(Duration.class)))
+            .thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+
+        // Act & Assert
+        StepVerifier.create(cache.get("PRODUCT_003", key -> Mono.just("Gizmo")))
+            .expectNext("Gizmo")
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should keep serving a stale value while one background reload replaces it")
+    void get_staleEntry_servedWhileRefreshed() {
+        // Arrange
+        ReactiveCache<String, String> refreshing = createCache(Duration.ZERO);
+        Sinks.One<String> reload = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+        when(valueOperations.get("productNames::PRODUCT_005")).thenReturn(Mono.empty());
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        StepVerifier.create(refreshing.get("PRODUCT_005", key -> Mono.just("v1")))
+            .expectNext("v1")
+            .verifyComplete();
+
+        // Act & Assert: both reads see the stale value and share one reload
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(refreshing.get("PRODUCT_005", key -> {
+                    loads.incrementAndGet();
+                    return reload.asMono();
+                }))
+                .expectNext("v1")
+                .verifyComplete();
+        }
+        reload.tryEmitValue("v2");
+
+        // Assert
+        assertEquals(1, loads.get());
+        StepVerifier.create(refreshing.get("PRODUCT_005", key -> Mono.just("v3")))
+            .expectNext("v2")
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should not write back a reload that started before an eviction")
+    void get_refreshOverlappingEvict_dropsStaleReload() {
+        // Arrange
+        ReactiveCache<String, String> refreshing = createCache(Duration.ZERO);
+        Sinks.One<String> reload = Sinks.one();
+        when(valueOperations.get("productNames::PRODUCT_006")).thenReturn(Mono.empty());
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.delete("productNames::PRODUCT_006")).thenReturn(Mono.just(1L));
+        StepVerifier.create(refreshing.get("PRODUCT_006", key -> Mono.just("before")))
+            .expectNext("before")
+            .verifyComplete();
+        StepVerifier.create(refreshing.get("PRODUCT_006", key -> reload.asMono()))
+            .expectNext("before")
+            .verifyComplete();
+
+        // Act: the batch evicts the key, then the reload that read the old totals completes
+        StepVerifier.create(refreshing.evict(List.of("PRODUCT_006")))
+            .verifyComplete();
+        reload.tryEmitValue("stale");
+
+        // Assert
+        StepVerifier.create(refreshing.get("PRODUCT_006", key -> Mono.just("after")))
+            .expectNext("after")
+            .verifyComplete();
+        verify(valueOperations, never()).set("productNames::PRODUCT_006", "stale", TTL);
+    }
+
+    @Test
+    @DisplayName("Should evict from Redis and L1 and broadcast it")
+    void evict_deletesAndBroadcasts() {
+        // Arrange
+        when(redisTemplate.delete("productNames::PRODUCT_004")).thenReturn(Mono.just(1L));
+
+        // Act & Assert
+        StepVerifier.create(cache.evict(List.of("PRODUCT_004")))
+            .verifyComplete();
+        verify(invalidationBus).publishEvict("productNames", "PRODUCT_004");
+    }
+
+    private ReactiveCache<String, String> createCache(Duration refreshAfter) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return new ReactiveCache<>("productNames", redisTemplate, objectMapper, objectMapper.constructType(String.class),
+                TTL, Caffeine.newBuilder().maximumSize(100).build(), invalidationBus, refreshAfter, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,140 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tabcorp.transaction.management.cache.ReferenceDataCache;
+import com.tabcorp.transaction.management.entity.Product;
+import com.tabcorp.transaction.management.repository.CustomerRepository;
+import com.tabcorp.transaction.management.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cache = new ReferenceDataCache(customerRepository, productRepository, redisTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), 300000);
+    }
+
+    @Test
+    @DisplayName("Should load a product miss from the database once and serve repeats from memory")
+    void getProduct_repeatedLookup_hitsDatabaseOnce() {
+        // Arrange
+        Product product = createProduct("PRODUCT_001");
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((Object) null)));
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(productRepository.findByProductCodeIn(anyCollection())).thenReturn(Flux.just(product));
+
+        // Act & Assert
+        StepVerifier.create(cache.getProduct("PRODUCT_001")).expectNext(product).verifyComplete();
+        StepVerifier.create(cache.getProduct("PRODUCT_001")).expectNext(product).verifyComplete();
+
+        verify(productRepository, times(1)).findByProductCodeIn(anyCollection());
+        verify(valueOperations).set("productCache::PRODUCT_001", product, Duration.ofMillis(300000));
+    }
+
+    @Test
+    @DisplayName("Should serve customers found in Redis without querying the database")
+    void existingCustomers_redisHit_skipsDatabase() {
+        // Arrange
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> Mono.just(
+                invocation.<List<String>>getArgument(0).stream()
+                        .map(key -> "customerCache::10001".equals(key) ? (Object) true : null)
+                        .toList()));
+        when(customerRepository.findExistingCustomerIds(anyCollection())).thenReturn(Flux.empty());
+
+        // Act & Assert
+        StepVerifier.create(cache.existingCustomers(List.of(10001, 10002)))
+                .expectNext(Set.of(10001))
+                .verifyComplete();
+
+        // Only the Redis miss is looked up, and a customer that does not exist is not cached
+        verify(customerRepository, times(1)).findExistingCustomerIds(List.of(10002));
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should share one database load between concurrent lookups of the same keys")
+    void getProducts_concurrentLookups_coalesceLoad() {
+        // Arrange
+        Product product = createProduct("PRODUCT_002");
+        Sinks.One<Product> pending = Sinks.one();
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((Object) null)));
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(productRepository.findByProductCodeIn(anyCollection())).thenReturn(pending.asMono().flux());
+
+        // Act
+        Mono<Map<String, Product>> first = cache.getProducts(Set.of("PRODUCT_002")).cache();
+        Mono<Map<String, Product>> second = cache.getProducts(Set.of("PRODUCT_002")).cache();
+        first.subscribe();
+        second.subscribe();
+        pending.tryEmitValue(product);
+
+        // Assert
+        StepVerifier.create(first).expectNext(Map.of("PRODUCT_002", product)).verifyComplete();
+        StepVerifier.create(second).expectNext(Map.of("PRODUCT_002", product)).verifyComplete();
+        verify(productRepository, times(1)).findByProductCodeIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database when Redis is unavailable")
+    void customerExists_redisDown_fallsBackToDatabase() {
+        // Arrange
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(valueOperations.set(anyString(), any(), any(Duration.class)))
+                .thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(customerRepository.findExistingCustomerIds(anyCollection())).thenReturn(Flux.just(10003));
+
+        // Act & Assert
+        StepVerifier.create(cache.customerExists(10003)).expectNext(true).verifyComplete();
+    }
+
+    private Product createProduct(String productCode) {
+        Product product = new Product();
+        product.setProductCode(productCode);
+        product.setStatus("ACTIVE");
+        product.setCost(new BigDecimal("10.00"));
+        return product;
+    }
+}
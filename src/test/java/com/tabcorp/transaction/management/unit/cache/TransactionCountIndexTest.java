@@ -0,0 +1,146 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.tabcorp.transaction.management.cache.TransactionCountIndex;
+import com.tabcorp.transaction.management.cache.TransactionCountIndex.Dimension;
+import com.tabcorp.transaction.management.dto.TransactionDimensionsRecord;
+import com.tabcorp.transaction.management.entity.Customer;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.repository.CustomerRepository;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionCountIndexTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private TransactionCountIndex countIndex;
+
+    @BeforeEach
+    void setUp() {
+        countIndex = new TransactionCountIndex(transactionRepository, customerRepository, new SimpleMeterRegistry());
+        when(customerRepository.findAll()).thenReturn(Flux.just(customer(10001, "Australia"), customer(10002, "US")));
+        when(transactionRepository.findDimensionsAfter(0L)).thenReturn(Flux.just(
+            new TransactionDimensionsRecord(1L, "Australia", "PRODUCT_001", "JSON", "PROCESSED"),
+            new TransactionDimensionsRecord(2L, "Australia", "PRODUCT_003", "BSON", "PROCESSED"),
+            new TransactionDimensionsRecord(3L, "US", "PRODUCT_001", "JSON", "PROCESSED"),
+            new TransactionDimensionsRecord(4L, "Australia", "PRODUCT_001", "BSON", "FAILED")));
+        StepVerifier.create(countIndex.rebuild()).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should count single values and intersections of any dimensions, ignoring case")
+    void count_combinedFilters_intersectsBitmaps() {
+        assertEquals(4, countIndex.count(Map.of()));
+        assertEquals(3, countIndex.count(Map.of(Dimension.LOCATION, "australia")));
+        assertEquals(2, countIndex.count(Map.of(Dimension.LOCATION, "Australia", Dimension.PRODUCT, "PRODUCT_001")));
+        assertEquals(1, countIndex.count(Map.of(Dimension.LOCATION, "Australia", Dimension.PRODUCT, "PRODUCT_001",
+            Dimension.FORMAT, "JSON", Dimension.STATUS, "PROCESSED")));
+        assertEquals(0, countIndex.count(Map.of(Dimension.LOCATION, "Canada")));
+    }
+
+    @Test
+    @DisplayName("Should count stored batches, looking up the location of customers it has not seen")
+    void record_newCustomer_countedOnceLocationKnown() {
+        // Arrange
+        when(customerRepository.findAllById(Set.of(10005))).thenReturn(Flux.just(customer(10005, "Canada")));
+
+        // Act
+        countIndex.record(List.of(transaction(10001, "PRODUCT_005"), transaction(10005, "PRODUCT_005")));
+        countIndex.record(List.of(transaction(10005, "PRODUCT_001")));
+
+        // Assert
+        assertEquals(7, countIndex.size());
+        assertEquals(4, countIndex.count(Map.of(Dimension.LOCATION, "Australia")));
+        assertEquals(2, countIndex.count(Map.of(Dimension.LOCATION, "Canada")));
+        assertEquals(2, countIndex.count(Map.of(Dimension.PRODUCT, "PRODUCT_005")));
+        verify(customerRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should keep batches recorded during a rebuild without counting the ones it read twice")
+    void rebuild_concurrentRecord_countedOnce() {
+        // Arrange
+        Sinks.Many<TransactionDimensionsRecord> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(transactionRepository.findDimensionsAfter(0L)).thenReturn(rows.asFlux());
+        Transaction scanned = transaction(10001, "PRODUCT_001");
+        scanned.setId(5L);
+        Transaction unscanned = transaction(10001, "PRODUCT_002");
+        unscanned.setId(6L);
+
+        // Act
+        StepVerifier.create(countIndex.rebuild())
+                .then(() -> {
+                    countIndex.record(List.of(scanned, unscanned));
+                    rows.tryEmitNext(new TransactionDimensionsRecord(1L, "Australia", "PRODUCT_001", "JSON", "PROCESSED"));
+                    rows.tryEmitNext(new TransactionDimensionsRecord(5L, "Australia", "PRODUCT_001", "JSON", "PROCESSED"));
+                    rows.tryEmitComplete();
+                })
+                .verifyComplete();
+        countIndex.record(List.of(scanned));
+
+        // Assert
+        assertEquals(3, countIndex.size());
+        assertEquals(1, countIndex.count(Map.of(Dimension.PRODUCT, "PRODUCT_002")));
+        assertEquals(2, countIndex.count(Map.of(Dimension.PRODUCT, "PRODUCT_001")));
+    }
+
+    @Test
+    @DisplayName("Should catch up by locating unlocated transactions and adding only the rows after the last one read")
+    void catchUp_failedLookupAndUnrecordedRows_countedWithoutFullScan() {
+        // Arrange
+        when(customerRepository.findAllById(Set.of(10009)))
+            .thenReturn(Flux.error(new IllegalStateException("Connection refused")), Flux.just(customer(10009, "Canada")));
+        Transaction recorded = transaction(10009, "PRODUCT_002");
+        recorded.setId(5L);
+        countIndex.record(List.of(recorded));
+        when(transactionRepository.findDimensionsAfter(4L)).thenReturn(Flux.just(
+            new TransactionDimensionsRecord(5L, "Canada", "PRODUCT_002", "JSON", "PROCESSED"),
+            new TransactionDimensionsRecord(6L, "US", "PRODUCT_003", "JSON", "PROCESSED")));
+
+        // Act
+        StepVerifier.create(countIndex.catchUp()).verifyComplete();
+
+        // Assert
+        assertEquals(6, countIndex.size());
+        assertEquals(1, countIndex.count(Map.of(Dimension.LOCATION, "Canada")));
+        assertEquals(2, countIndex.count(Map.of(Dimension.LOCATION, "US")));
+        verify(transactionRepository, times(1)).findDimensionsAfter(0L);
+    }
+
+    private static Customer customer(int customerId, String location) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setLocation(location);
+        return customer;
+    }
+
+    private static Transaction transaction(int customerId, String productCode) {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(customerId);
+        transaction.setProductCode(productCode);
+        transaction.setDataFormat("JSON");
+        transaction.setStatus("PROCESSED");
+        return transaction;
+    }
+}
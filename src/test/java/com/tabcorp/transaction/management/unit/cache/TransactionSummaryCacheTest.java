@@ -0,0 +1,153 @@
+package com.tabcorp.transaction.management.unit.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tabcorp.transaction.management.cache.ReactiveCache;
+import com.tabcorp.transaction.management.cache.ReactiveCacheManager;
+import com.tabcorp.transaction.management.cache.TransactionSummaryCache;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
+import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSummaryCacheTest {
+
+    private static final Duration REFRESH_AFTER = Duration.ofSeconds(60);
+    private static final Duration MAX_STALENESS = Duration.ofMinutes(5);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionSummaryMapper mapper;
+
+    @Mock
+    private ReactiveCacheManager cacheManager;
+
+    @Mock
+    private ReactiveCache<Integer, CustomerTransactionSummaryDTO> customers;
+
+    @Mock
+    private ReactiveCache<String, ProductTransactionSummaryDTO> products;
+
+    @Mock
+    private ReactiveCache<String, List<Integer>> customerListing;
+
+    @Mock
+    private ReactiveCache<String, List<String>> productListing;
+
+    private TransactionSummaryCache summaryCache;
+
+    @BeforeEach
+    void setUp() {
+        when(cacheManager.<Integer, CustomerTransactionSummaryDTO>getCache(
+                "customerSummaryCache", CustomerTransactionSummaryDTO.class, REFRESH_AFTER, MAX_STALENESS))
+            .thenReturn(customers);
+        when(cacheManager.<String, ProductTransactionSummaryDTO>getCache(
+                "productSummaryCache", ProductTransactionSummaryDTO.class, REFRESH_AFTER, MAX_STALENESS))
+            .thenReturn(products);
+        when(cacheManager.<String, List<Integer>>getCache(
+                eq("customerSummaryListing"), any(JavaType.class), eq(REFRESH_AFTER), eq(MAX_STALENESS)))
+            .thenReturn(customerListing);
+        when(cacheManager.<String, List<String>>getCache(
+                eq("productSummaryListing"), any(JavaType.class), eq(REFRESH_AFTER), eq(MAX_STALENESS)))
+            .thenReturn(productListing);
+        summaryCache = new TransactionSummaryCache(transactionRepository, mapper, cacheManager, new ObjectMapper(),
+            REFRESH_AFTER, MAX_STALENESS);
+    }
+
+    @Test
+    @DisplayName("Should evict the summaries of every batch in the window together, keeping the listings")
+    void flush_severalBatches_oneTargetedEviction() {
+        // Arrange
+        when(customers.evict(any())).thenReturn(Mono.empty());
+        when(products.evict(any())).thenReturn(Mono.empty());
+        when(customerListing.getIfPresent("all")).thenReturn(Mono.just(List.of(1, 2, 3)));
+        when(productListing.getIfPresent("all")).thenReturn(Mono.just(List.of("PRODUCT_001", "PRODUCT_002")));
+        summaryCache.invalidate(List.of(transaction(1, "PRODUCT_001"), transaction(2, "PRODUCT_001")));
+        summaryCache.invalidate(List.of(transaction(1, "PRODUCT_002")));
+
+        // Act & Assert
+        StepVerifier.create(summaryCache.flush()).verifyComplete();
+        verify(customers, times(1)).evict(Set.of(1, 2));
+        verify(products, times(1)).evict(Set.of("PRODUCT_001", "PRODUCT_002"));
+        verify(customerListing, never()).evict(any());
+        verify(productListing, never()).evict(any());
+
+        // Act & Assert: nothing new was stored, so the next window evicts nothing
+        StepVerifier.create(summaryCache.flush()).verifyComplete();
+        verifyNoMoreInteractions(customers, products);
+    }
+
+    @Test
+    @DisplayName("Should drop a listing when a customer appears in it for the first time")
+    void flush_newCustomer_evictsListing() {
+        // Arrange
+        when(customers.evict(any())).thenReturn(Mono.empty());
+        when(products.evict(any())).thenReturn(Mono.empty());
+        when(customerListing.getIfPresent("all")).thenReturn(Mono.just(List.of(1, 2)));
+        when(customerListing.evict(List.of("all"))).thenReturn(Mono.empty());
+        when(productListing.getIfPresent("all")).thenReturn(Mono.just(List.of("PRODUCT_001")));
+        summaryCache.invalidate(List.of(transaction(1, "PRODUCT_001"), transaction(7, "PRODUCT_001")));
+
+        // Act & Assert
+        StepVerifier.create(summaryCache.flush()).verifyComplete();
+        verify(customers).evict(Set.of(1, 7));
+        verify(customerListing).evict(List.of("all"));
+        verify(productListing, never()).evict(any());
+    }
+
+    @Test
+    @DisplayName("Should reuse the encoded listing until the cached summaries change")
+    void encodedCustomerSummaries_unchanged_reused() {
+        // Arrange
+        CustomerTransactionSummaryDTO summary = new CustomerTransactionSummaryDTO(1, "John", "Smith", 12_550L);
+        when(customerListing.get(eq("all"), any())).thenReturn(Mono.just(List.of(1)));
+        when(customers.getAll(eq(List.of(1)), any())).thenReturn(Mono.just(Map.of(1, summary)));
+
+        // Act
+        EncodedResponse first = summaryCache.encodedCustomerSummaries().block();
+        EncodedResponse second = summaryCache.encodedCustomerSummaries().block();
+        summary.setTotalCostCents(13_000L);
+        when(customers.version()).thenReturn(1L);
+        EncodedResponse changed = summaryCache.encodedCustomerSummaries().block();
+
+        // Assert
+        assertEquals("[{\"customerId\":1,\"firstName\":\"John\",\"lastName\":\"Smith\",\"totalCost\":125.50}]",
+            new String(first.body(), StandardCharsets.UTF_8));
+        assertSame(first, second);
+        assertNotEquals(first.eTag(), changed.eTag());
+        verify(customers, times(2)).getAll(any(), any());
+    }
+
+    private static Transaction transaction(int customerId, String productCode) {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(customerId);
+        transaction.setProductCode(productCode);
+        return transaction;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tabcorp.transaction.management.unit.config;
+
+import com.tabcorp.transaction.management.config.BsonDeserializer;
+import com.tabcorp.transaction.management.entity.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BsonDeserializerTest {
+
+    private BsonDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        deserializer = new BsonDeserializer();
+    }
+
+    @Test
+    @DisplayName("Should map a binary BSON envelope and keep the payload bytes untouched")
+    void deserialize_binaryBson_mapsEnvelopeAndPayload() {
+        // Arrange
+        LocalDateTime transactionTime = LocalDateTime.of(2025, 3, 24, 8, 15);
+        BsonDocument payload = new BsonDocument("payment_method", new BsonString("credit_card"))
+                .append("currency", new BsonString("AUD"))
+                .append("nested_data", new BsonDocument("device", new BsonString("iPhone")));
+        BsonDocument envelope = new BsonDocument("customerId", new BsonInt32(10001))
+                .append("productCode", new BsonString("PRODUCT_003"))
+                .append("quantity", new BsonInt32(2))
+                .append("transactionTime", new BsonDateTime(
+                        transactionTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                .append("bsonData", payload)
+                .append("unknownField", new BsonString("ignored"));
+
+        // Act
+        Transaction transaction = deserializer.deserialize("bson-transactions", encode(envelope));
+
+        // Assert
+        assertEquals(10001, transaction.getCustomerId());
+        assertEquals("PRODUCT_003", transaction.getProductCode());
+        assertEquals(2, transaction.getQuantity());
+        assertEquals(transactionTime, transaction.getTransactionTime());
+        assertEquals("BSON", transaction.getDataFormat());
+        assertEquals("BSON", transaction.getPayloadEncoding());
+        assertArrayEquals(encode(payload), transaction.getBsonData());
+        assertEquals(payload, new RawBsonDocument(transaction.getBsonData()));
+    }
+
+    @Test
+    @DisplayName("Should still accept JSON text published on the BSON topic")
+    void deserialize_legacyJsonText_mapsEnvelope() {
+        // Arrange
+        byte[] json = "{\"customerId\":10003,\"productCode\":\"PRODUCT_001\",\"quantity\":1,\"transactionTime\":\"2025-03-24T12:30:00\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        Transaction transaction = deserializer.deserialize("bson-transactions", json);
+
+        // Assert
+        assertEquals(10003, transaction.getCustomerId());
+        assertEquals("PRODUCT_001", transaction.getProductCode());
+        assertEquals(LocalDateTime.of(2025, 3, 24, 12, 30), transaction.getTransactionTime());
+        assertEquals("BSON", transaction.getDataFormat());
+    }
+
+    @Test
+    @DisplayName("Should reject a BSON envelope with a field of the wrong type")
+    void deserialize_wrongFieldType_throwsSerializationException() {
+        // Arrange
+        BsonDocument envelope = new BsonDocument("customerId", new BsonInt32(10001))
+                .append("bsonData", new BsonInt32(42));
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("bson-transactions", encode(envelope)));
+    }
+
+    @Test
+    @DisplayName("Should return null for a null record value")
+    void deserialize_null_returnsNull() {
+        assertNull(deserializer.deserialize("bson-transactions", null));
+    }
+
+    private byte[] encode(BsonDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+}
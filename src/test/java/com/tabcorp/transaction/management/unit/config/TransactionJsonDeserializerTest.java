@@ -0,0 +1,81 @@
+package com.tabcorp.transaction.management.unit.config;
+
+import com.tabcorp.transaction.management.config.TransactionJsonDeserializer;
+import com.tabcorp.transaction.management.entity.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJsonDeserializerTest {
+
+    private TransactionJsonDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        deserializer = new TransactionJsonDeserializer();
+    }
+
+    @Test
+    @DisplayName("Should map envelope fields and keep a string payload as-is")
+    void deserialize_stringPayload_mapsFields() {
+        // Arrange
+        String json = "{\"customerId\":1,\"productCode\":\"PRODUCT_001\",\"quantity\":3,"
+                + "\"transactionTime\":\"2023-07-15T10:30:00\",\"dataFormat\":\"JSON\","
+                + "\"jsonData\":\"{\\\"metadata\\\": {\\\"channel\\\": \\\"web\\\"}}\"}";
+
+        // Act
+        Transaction transaction = deserializer.deserialize("json-transactions", bytes(json));
+
+        // Assert
+        assertEquals(1, transaction.getCustomerId());
+        assertEquals("PRODUCT_001", transaction.getProductCode());
+        assertEquals(3, transaction.getQuantity());
+        assertEquals(LocalDateTime.of(2023, 7, 15, 10, 30), transaction.getTransactionTime());
+        assertEquals("JSON", transaction.getDataFormat());
+        assertEquals("JSON", transaction.getPayloadEncoding());
+        assertEquals("{\"metadata\": {\"channel\": \"web\"}}", transaction.getJsonData());
+    }
+
+    @Test
+    @DisplayName("Should capture a nested payload object as its raw text")
+    void deserialize_objectPayload_capturesRawSlice() {
+        // Arrange
+        String payload = "{\"currency\":\"AUD\",\"nested\":{\"items\":[1,2,{\"a\":\"}\"}]},\"channel\":\"web\"}";
+        String json = "{\"jsonData\":" + payload + ",\"customerId\":\"10001\",\"ignored\":{\"x\":[1]},\"quantity\":null}";
+
+        // Act
+        Transaction transaction = deserializer.deserialize("json-transactions", bytes(json));
+
+        // Assert
+        assertEquals(payload, transaction.getJsonData());
+        assertEquals(10001, transaction.getCustomerId());
+        assertNull(transaction.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject records that are not a JSON object")
+    void deserialize_notAnObject_throwsSerializationException() {
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("json-transactions", bytes("[1,2]")));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("json-transactions", bytes("{\"customerId\":")));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("json-transactions", bytes("{\"productCode\":{\"code\":\"PRODUCT_001\"}}")));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("json-transactions", bytes("{\"productCode\":[\"PRODUCT_001\"]}")));
+    }
+
+    @Test
+    @DisplayName("Should return null for a null record value")
+    void deserialize_null_returnsNull() {
+        assertNull(deserializer.deserialize("json-transactions", null));
+    }
+
+    private byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,9 +1,12 @@
 package com.tabcorp.transaction.management.unit.controller;
 
 import com.tabcorp.transaction.management.controller.TransactionAnalyticsController;
+import com.tabcorp.transaction.management.dto.AttributeGroupDTO;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.EncodedResponse;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
-import com.tabcorp.transaction.management.repository.TransactionRepository;
+import com.tabcorp.transaction.management.exception.ResourceNotFoundException;
+import com.tabcorp.transaction.management.service.AnalyticsService;
 import com.tabcorp.transaction.management.service.impl.TransactionServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,22 +14,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionAnalyticsControllerTest {
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private TransactionServiceImpl transactionService;
 
     @Mock
-    private TransactionServiceImpl transactionService;
+    private AnalyticsService analyticsService;
 
     @InjectMocks
     private TransactionAnalyticsController controller;
@@ -64,38 +73,62 @@ public class TransactionAnalyticsControllerTest {
     @Test
     void testGetTotalCostPerCustomer() {
         // Arrange
-        when(transactionService.getCachedTotalCostPerCustomer())
-                .thenReturn(Flux.just(customerSummary1, customerSummary2));
+        EncodedResponse encoded = new EncodedResponse(
+                "[{\"customerId\":10001,\"totalCost\":150.00}]".getBytes(StandardCharsets.UTF_8), "\"5d41402a\"");
+        when(transactionService.getEncodedTotalCostPerCustomer()).thenReturn(Mono.just(encoded));
 
         // Act & Assert
-        StepVerifier.create(controller.getTotalCostPerCustomer())
-                .expectNext(customerSummary1)
-                .expectNext(customerSummary2)
+        StepVerifier.create(controller.getTotalCostPerCustomer(null))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.OK, response.getStatusCode());
+                    assertEquals("\"5d41402a\"", response.getHeaders().getETag());
+                    assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+                    assertEquals(encoded.body().length, response.getBody().readableByteCount());
+                })
                 .verifyComplete();
 
-        verify(transactionService, times(1)).getCachedTotalCostPerCustomer();
+        verify(transactionService, times(1)).getEncodedTotalCostPerCustomer();
     }
 
     @Test
-    void testGetTotalCostPerProduct() {
+    void testGetTotalCostPerProduct_matchingETag_notModified() {
         // Arrange
-        when(transactionService.getCachedTotalCostPerProduct())
-                .thenReturn(Flux.just(productSummary1, productSummary2));
+        EncodedResponse encoded = new EncodedResponse(
+                "[{\"productCode\":\"PRODUCT_001\"}]".getBytes(StandardCharsets.UTF_8), "\"7d793037\"");
+        when(transactionService.getEncodedTotalCostPerProduct()).thenReturn(Mono.just(encoded));
 
         // Act & Assert
-        StepVerifier.create(controller.getTotalCostPerProduct())
-                .expectNext(productSummary1)
-                .expectNext(productSummary2)
+        StepVerifier.create(controller.getTotalCostPerProduct("\"0000\", W/\"7d793037\""))
+                .assertNext(response -> {
+                    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                    assertEquals("\"7d793037\"", response.getHeaders().getETag());
+                    assertNull(response.getBody());
+                })
                 .verifyComplete();
 
-        verify(transactionService, times(1)).getCachedTotalCostPerProduct();
+        verify(transactionService, times(1)).getEncodedTotalCostPerProduct();
+    }
+
+    @Test
+    void testGetTotalCostForCustomer() {
+        // Arrange
+        when(transactionService.getCachedCustomerSummary(10001)).thenReturn(Mono.just(customerSummary1));
+        when(transactionService.getCachedCustomerSummary(99999)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(controller.getTotalCostForCustomer(10001))
+                .expectNext(customerSummary1)
+                .verifyComplete();
+        StepVerifier.create(controller.getTotalCostForCustomer(99999))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
     }
 
 
     @Test
     void testGetAustralianTransactionCount() {
         // Arrange
-        when(transactionRepository.getAustralianTransactionCount())
+        when(analyticsService.count("Australia", null, null, null))
                 .thenReturn(Mono.just(15L));
 
         // Act & Assert
@@ -105,8 +138,32 @@ public class TransactionAnalyticsControllerTest {
                     map.get("count").equals(15L))
                 .verifyComplete();
 
-        verify(transactionRepository, times(1)).getAustralianTransactionCount();
+        verify(analyticsService, times(1)).count("Australia", null, null, null);
     }
 
-}
+    @Test
+    void testGetTransactionCount() {
+        // Arrange
+        when(analyticsService.count("Australia", "PRODUCT_001", "JSON", null))
+                .thenReturn(Mono.just(4L));
 
+        // Act & Assert
+        StepVerifier.create(controller.getTransactionCount("Australia", "PRODUCT_001", "JSON", null))
+                .expectNext(Map.of("count", 4L))
+                .verifyComplete();
+    }
+
+    @Test
+    void testGroupBy() {
+        // Arrange
+        AttributeGroupDTO mobile = new AttributeGroupDTO("mobile", 3L, 6L, 12000L);
+        when(analyticsService.groupBy("channel", "total_cost")).thenReturn(Flux.just(mobile));
+
+        // Act & Assert
+        StepVerifier.create(controller.groupBy("channel", "total_cost"))
+                .expectNext(mobile)
+                .verifyComplete();
+
+        verify(analyticsService, times(1)).groupBy("channel", "total_cost");
+    }
+}
@@ -0,0 +1,136 @@
+package com.tabcorp.transaction.management.unit.listener;
+
+import com.tabcorp.transaction.management.listener.IngestionFlowControl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionFlowControlTest {
+
+    private static final String LISTENER_ID = "json-listener";
+    private static final TopicPartition PARTITION = new TopicPartition("transactions", 0);
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Consumer<?, ?> consumer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private BiConsumer<TopicPartition, Long> rewind;
+
+    private IngestionFlowControl flowControl;
+
+    @BeforeEach
+    void setUp() {
+        flowControl = new IngestionFlowControl(listenerRegistry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(flowControl, "maxInFlightPerPartition", 2);
+        flowControl.init();
+        lenient().when(listenerRegistry.getListenerContainer(LISTENER_ID)).thenReturn(container);
+    }
+
+    @Test
+    @DisplayName("Should lift the pause of a revoked partition and start it afresh when reassigned")
+    void revokeAndAssign_pausedPartition_resetsState() {
+        // Arrange
+        Sinks.Empty<Void> beforeRebalance = Sinks.empty();
+        flowControl.dispatch(LISTENER_ID, records(2), acknowledgment, beforeRebalance.asMono(), rewind);
+        verify(container).pausePartition(PARTITION);
+
+        // Act
+        flowControl.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+        flowControl.onPartitionsAssigned(consumer, List.of(PARTITION));
+        Sinks.Empty<Void> afterRebalance = Sinks.empty();
+        flowControl.dispatch(LISTENER_ID, records(1), acknowledgment, afterRebalance.asMono(), rewind);
+        beforeRebalance.tryEmitEmpty();
+
+        // Assert
+        verify(container, times(1)).resumePartition(PARTITION);
+        verify(container, times(1)).pausePartition(PARTITION);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should not carry in-flight records of a lost partition over to its next assignment")
+    void lost_inFlightRecords_notCountedAfterReassign() {
+        // Arrange
+        flowControl.dispatch(LISTENER_ID, records(1), acknowledgment, Sinks.<Void>empty().asMono(), rewind);
+
+        // Act
+        flowControl.onPartitionsLost(consumer, List.of(PARTITION));
+        flowControl.onPartitionsAssigned(consumer, List.of(PARTITION));
+        flowControl.dispatch(LISTENER_ID, records(1), acknowledgment, Sinks.<Void>empty().asMono(), rewind);
+
+        // Assert
+        verify(container, never()).pausePartition(PARTITION);
+    }
+
+    @Test
+    @DisplayName("Should not acknowledge a failed batch or later ones on its partition, and rewind it")
+    void dispatch_persistenceFails_rewindsWithoutAcknowledging() {
+        // Arrange
+        Sinks.Empty<Void> failing = Sinks.empty();
+        flowControl.dispatch(LISTENER_ID, records(0, 1), acknowledgment, Mono.empty(), rewind);
+        flowControl.dispatch(LISTENER_ID, records(1, 1), acknowledgment, failing.asMono(), rewind);
+        flowControl.dispatch(LISTENER_ID, records(2, 1), acknowledgment, Mono.empty(), rewind);
+
+        // Act
+        failing.tryEmitError(new IllegalStateException("Connection refused"));
+
+        // Assert
+        verify(acknowledgment, times(1)).acknowledge();
+        verify(rewind, times(1)).accept(PARTITION, 1L);
+    }
+
+    @Test
+    @DisplayName("Should acknowledge again once the records after a rewind are redelivered")
+    void dispatch_redeliveredAfterRewind_acknowledgesAgain() {
+        // Arrange
+        flowControl.dispatch(LISTENER_ID, records(0, 1), acknowledgment,
+            Mono.error(new IllegalStateException("Connection refused")), rewind);
+        flowControl.dispatch(LISTENER_ID, records(1, 1), acknowledgment, Mono.empty(), rewind);
+        verify(rewind).accept(PARTITION, 0L);
+
+        // Act
+        flowControl.dispatch(LISTENER_ID, records(0, 2), acknowledgment, Mono.empty(), rewind);
+
+        // Assert
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    private List<ConsumerRecord<String, String>> records(int count) {
+        return records(0, count);
+    }
+
+    private List<ConsumerRecord<String, String>> records(long firstOffset, int count) {
+        return LongStream.range(firstOffset, firstOffset + count)
+            .mapToObj(offset -> new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "key", "value"))
+            .toList();
+    }
+}
@@ -35,7 +35,7 @@ class TransactionSummaryMapperTest {
                 10001L,
                 "John",
                 "Doe",
-                125.50
+                12550L
         );
 
         // Act
@@ -56,7 +56,7 @@ class TransactionSummaryMapperTest {
         ProductTransactionSummaryRecord record = new ProductTransactionSummaryRecord(
                 "PRODUCT_001",
                 "ACTIVE",
-                250.75
+                25075L
         );
 
         // Act
@@ -119,7 +119,7 @@ class TransactionSummaryMapperTest {
                 10001L,
                 "John",
                 "Doe",
-                0.0
+                0L
         );
 
         // Act
@@ -127,7 +127,7 @@ class TransactionSummaryMapperTest {
 
         // Assert
         assertNotNull(dto);
-        assertEquals(BigDecimal.ZERO, dto.getTotalCost());
+        assertEquals(new BigDecimal("0.00"), dto.getTotalCost());
     }
 
     @Test
@@ -138,7 +138,7 @@ class TransactionSummaryMapperTest {
                 Long.MAX_VALUE,
                 "Max",
                 "Values",
-                Double.MAX_VALUE
+                Long.MAX_VALUE
         );
 
         // Act
@@ -149,7 +149,25 @@ class TransactionSummaryMapperTest {
         assertNotNull(dto.getCustomerId());
         assertEquals("Max", dto.getFirstName());
         assertEquals("Values", dto.getLastName());
-        assertNotNull(dto.getTotalCost());
+        assertEquals(new BigDecimal("92233720368547758.07"), dto.getTotalCost());
+    }
+
+    @Test
+    @DisplayName("Should keep every cent of large totals")
+    void productTransactionRecordToDto_withLargeTotal_isExact() {
+        // Arrange - beyond the 2^53 cents a double can hold exactly
+        ProductTransactionSummaryRecord record = new ProductTransactionSummaryRecord(
+                "PRODUCT_001",
+                "ACTIVE",
+                9007199254740993L
+        );
+
+        // Act
+        ProductTransactionSummaryDTO dto = mapper.productTransactionRecordToDto(record);
+
+        // Assert
+        assertEquals(9007199254740993L, dto.getTotalCostCents());
+        assertEquals(new BigDecimal("90071992547409.93"), dto.getTotalCost());
     }
 }
 
@@ -0,0 +1,73 @@
+package com.tabcorp.transaction.management.unit.payload;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadAttributePromoter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadAttributePromoterTest {
+
+    private final PayloadAttributePromoter promoter = new PayloadAttributePromoter(
+            List.of("currency"), List.of("payment_method"), List.of("channel", "metadata.channel"));
+
+    @Test
+    @DisplayName("Should copy top-level and nested payload attributes into the promoted columns")
+    void promote_payloadAttributes_setsColumns() {
+        // Arrange
+        Transaction transaction = jsonTransaction(
+                "{\"payment_method\":\"paypal\",\"currency\":\"AUD\",\"metadata\":{\"channel\":\"web\"}}");
+
+        // Act
+        boolean promoted = promoter.promote(transaction);
+
+        // Assert
+        assertTrue(promoted);
+        assertEquals("AUD", transaction.getCurrency());
+        assertEquals("paypal", transaction.getPaymentMethod());
+        assertEquals("web", transaction.getChannel());
+        assertEquals(promoter.fingerprint(), transaction.getPromotedPaths());
+    }
+
+    @Test
+    @DisplayName("Should fingerprint the configured paths, so a row promoted with other paths is read again")
+    void fingerprint_differentPaths_differs() {
+        // Arrange
+        PayloadAttributePromoter same = new PayloadAttributePromoter(
+                List.of("currency"), List.of("payment_method"), List.of("channel", "metadata.channel"));
+        PayloadAttributePromoter reconfigured = new PayloadAttributePromoter(
+                List.of("currency"), List.of("payment_method"), List.of("channel"));
+
+        // Act & Assert
+        assertEquals(promoter.fingerprint(), same.fingerprint());
+        assertNotEquals(promoter.fingerprint(), reconfigured.fingerprint());
+    }
+
+    @Test
+    @DisplayName("Should leave out missing, non-string and oversized attributes")
+    void promote_unusableAttributes_leavesColumnsNull() {
+        // Arrange
+        Transaction transaction = jsonTransaction("{\"currency\":\"AUSTRALIAN_DOLLAR\",\"channel\":42}");
+
+        // Act
+        boolean promoted = promoter.promote(transaction);
+
+        // Assert
+        assertFalse(promoted);
+        assertNull(transaction.getCurrency());
+        assertNull(transaction.getPaymentMethod());
+        assertNull(transaction.getChannel());
+        assertFalse(promoter.promote(new Transaction()));
+    }
+
+    private Transaction jsonTransaction(String payload) {
+        Transaction transaction = new Transaction();
+        transaction.setDataFormat("JSON");
+        transaction.setJsonData(payload);
+        transaction.setPayloadEncoding("JSON");
+        return transaction;
+    }
+}
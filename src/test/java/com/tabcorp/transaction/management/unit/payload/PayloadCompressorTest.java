@@ -0,0 +1,133 @@
+package com.tabcorp.transaction.management.unit.payload;
+
+import com.tabcorp.transaction.management.entity.PayloadDictionary;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadCompressor;
+import com.tabcorp.transaction.management.payload.PayloadCompressor.CompressedPayload;
+import com.tabcorp.transaction.management.repository.PayloadDictionaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PayloadCompressorTest {
+
+    private static final String[] PAYMENT_METHODS = {"credit_card", "paypal", "apple_pay", "google_pay", "debit_card"};
+    private static final String[] CHANNELS = {"mobile", "web", "tablet"};
+
+    @Mock
+    private PayloadDictionaryRepository dictionaryRepository;
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Test
+    @DisplayName("Should compress a JSON payload with the trained dictionary and restore it on read")
+    void compress_withDictionary_roundTrips() {
+        // Arrange
+        PayloadDictionary dictionary = new PayloadDictionary(1, PayloadCompressor.ZSTD,
+                PayloadCompressor.train(samplePayloads(1000), 2048), 1000, null);
+        when(dictionaryRepository.findAll()).thenReturn(Flux.just(dictionary));
+        PayloadCompressor compressor = compressor(true);
+        compressor.start();
+        Transaction transaction = jsonTransaction(samplePayload(10));
+
+        // Act
+        CompressedPayload compressed = compressor.compress(transaction);
+
+        // Assert
+        assertNotNull(compressed);
+        assertEquals(1, compressed.dictionaryId());
+        assertTrue(compressed.bytes().length < samplePayload(10).length());
+
+        Transaction stored = storedForm(compressed);
+        StepVerifier.create(compressor.decompress(stored))
+                .assertNext(restored -> {
+                    assertEquals(samplePayload(10), restored.getJsonData());
+                    assertNull(restored.getBsonData());
+                    assertNull(restored.getPayloadCodec());
+                    assertEquals("credit_card", restored.getPayload().getString("payment_method"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should load a dictionary it has not seen when reading a row compressed with it")
+    void decompress_unknownDictionary_loadsById() {
+        // Arrange
+        PayloadDictionary dictionary = new PayloadDictionary(3, PayloadCompressor.ZSTD,
+                PayloadCompressor.train(samplePayloads(1000), 2048), 1000, null);
+        when(dictionaryRepository.findAll()).thenReturn(Flux.just(dictionary));
+        PayloadCompressor writer = compressor(true);
+        writer.start();
+        CompressedPayload compressed = writer.compress(jsonTransaction(samplePayload(11)));
+
+        when(dictionaryRepository.findById(3)).thenReturn(Mono.just(dictionary));
+        PayloadCompressor reader = compressor(false);
+
+        // Act & Assert
+        StepVerifier.create(reader.decompress(storedForm(compressed)))
+                .assertNext(restored -> assertEquals(samplePayload(11), restored.getJsonData()))
+                .verifyComplete();
+        verify(dictionaryRepository, times(1)).findById(3);
+    }
+
+    @Test
+    @DisplayName("Should store payloads as they are when compression is disabled or they are too small")
+    void compress_disabledOrSmall_returnsNull() {
+        assertNull(compressor(false).compress(jsonTransaction(samplePayload(1))));
+        assertNull(compressor(true).compress(jsonTransaction("{\"currency\":\"AUD\"}")));
+    }
+
+    private PayloadCompressor compressor(boolean enabled) {
+        return new PayloadCompressor(dictionaryRepository, databaseClient, new SimpleMeterRegistry(),
+                enabled, 3, 64, 2048, 1000, 100);
+    }
+
+    private Transaction jsonTransaction(String payload) {
+        Transaction transaction = new Transaction();
+        transaction.setDataFormat("JSON");
+        transaction.setJsonData(payload);
+        transaction.setPayloadEncoding("JSON");
+        return transaction;
+    }
+
+    // The columns as insertAll writes them for a compressed payload
+    private Transaction storedForm(CompressedPayload compressed) {
+        Transaction stored = new Transaction();
+        stored.setDataFormat("JSON");
+        stored.setBsonData(compressed.bytes());
+        stored.setPayloadEncoding(compressed.encoding());
+        stored.setPayloadCodec(compressed.codec());
+        stored.setPayloadDictionaryId(compressed.dictionaryId());
+        return stored;
+    }
+
+    private List<byte[]> samplePayloads(int count) {
+        List<byte[]> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            samples.add(samplePayload(i).getBytes(StandardCharsets.UTF_8));
+        }
+        return samples;
+    }
+
+    private String samplePayload(int i) {
+        return "{\"payment_method\":\"" + PAYMENT_METHODS[i % PAYMENT_METHODS.length] + "\",\"card_type\":\"VISA\","
+                + "\"transaction_reference\":\"TX-" + (1000 + i) + "-2025\",\"currency\":\"AUD\","
+                + "\"promocode\":\"\",\"channel\":\"" + CHANNELS[i % CHANNELS.length] + "\",\"loyalty_points\":" + (i * 7 % 500) + "}";
+    }
+}
@@ -0,0 +1,139 @@
+package com.tabcorp.transaction.management.unit.payload;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.TransactionPayload;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionPayloadTest {
+
+    @Test
+    @DisplayName("Should read typed fields from a JSON payload without materializing nested values")
+    void jsonPayload_typedAccess_returnsFieldValues() {
+        // Arrange
+        TransactionPayload payload = TransactionPayload.of("JSON",
+                "{\"nested\":{\"currency\":\"USD\"},\"currency\":\"AUD\",\"loyalty_points\":120,"
+                        + "\"amount\":150.5,\"gift\":true,\"note\":null}", null);
+
+        // Act & Assert
+        assertEquals("AUD", payload.getString("currency"));
+        assertEquals(120L, payload.getLong("loyalty_points"));
+        assertEquals(150.5, payload.getDouble("amount"));
+        assertEquals(150.5, payload.getNumber("amount"));
+        assertEquals(120, payload.getNumber("loyalty_points").intValue());
+        assertEquals(Boolean.TRUE, payload.getBoolean("gift"));
+        assertTrue(payload.contains("note"));
+        assertNull(payload.getString("note"));
+        assertNull(payload.getString("nested"));
+        assertNull(payload.getLong("currency"));
+        assertFalse(payload.contains("channel"));
+    }
+
+    @Test
+    @DisplayName("Should read typed fields from a binary BSON payload in place")
+    void bsonPayload_typedAccess_returnsFieldValues() {
+        // Arrange
+        BsonDocument document = new BsonDocument("currency", new BsonString("AUD"))
+                .append("loyalty_points", new BsonInt64(7_000_000_000L));
+        TransactionPayload payload = TransactionPayload.of("BSON", null, encode(document));
+
+        // Act & Assert
+        assertEquals("AUD", payload.getString("currency"));
+        assertEquals(7_000_000_000L, payload.getLong("loyalty_points"));
+        assertEquals(Map.of("currency", "AUD", "loyalty_points", 7_000_000_000L), payload.toMap());
+    }
+
+    @Test
+    @DisplayName("Should read only integral values as longs, never truncating fractions or overflowing")
+    void getLong_nonIntegralValues_returnsNull() {
+        // Arrange
+        TransactionPayload json = TransactionPayload.of("JSON",
+                "{\"whole\":3.0,\"fraction\":2.7,\"huge\":1e20,\"big\":99999999999999999999}", null);
+        BsonDocument document = new BsonDocument("whole", new BsonDouble(3.0))
+                .append("fraction", new BsonDouble(2.7))
+                .append("nan", new BsonDouble(Double.NaN));
+        TransactionPayload bson = TransactionPayload.of("BSON", null, encode(document));
+
+        // Act & Assert
+        assertEquals(3L, json.getLong("whole"));
+        assertNull(json.getLong("fraction"));
+        assertNull(json.getLong("huge"));
+        assertNull(json.getLong("big"));
+        assertEquals(3L, bson.getLong("whole"));
+        assertNull(bson.getLong("fraction"));
+        assertNull(bson.getLong("nan"));
+    }
+
+    @Test
+    @DisplayName("Should read payload bytes tagged as JSON as JSON text")
+    void binaryPayload_jsonEncoding_readsAsJson() {
+        // Arrange
+        byte[] legacy = "{\"payment_method\":\"credit_card\",\"channel\":\"mobile\"}".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        TransactionPayload payload = TransactionPayload.of("JSON", null, legacy);
+
+        // Assert
+        assertEquals("mobile", payload.getString("channel"));
+    }
+
+    @Test
+    @DisplayName("Should read nested fields addressed by dotted paths from JSON and BSON payloads")
+    void nestedField_dottedPath_readsInPlace() {
+        // Arrange
+        TransactionPayload json = TransactionPayload.of("JSON",
+                "{\"channel\":{\"id\":1},\"metadata\":{\"other\":{\"channel\":\"x\"},\"channel\":\"web\"},"
+                        + "\"currency\":\"AUD\"}", null);
+        TransactionPayload bson = TransactionPayload.of("BSON", null, encode(new BsonDocument("metadata",
+                new BsonDocument("channel", new BsonString("web"))).append("currency", new BsonString("AUD"))));
+
+        // Act & Assert
+        for (TransactionPayload payload : new TransactionPayload[] {json, bson}) {
+            assertEquals("web", payload.getString("metadata.channel"));
+            assertTrue(payload.contains("metadata.channel"));
+            assertFalse(payload.contains("metadata.device"));
+            assertNull(payload.getString("currency.code"));
+            assertEquals("AUD", payload.getString("currency"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should cache the view per transaction and rebuild it when the payload changes")
+    void transaction_payloadView_resetOnChange() {
+        // Arrange
+        Transaction transaction = new Transaction();
+        transaction.setDataFormat("JSON");
+        transaction.setJsonData("{\"currency\":\"AUD\"}");
+
+        // Act
+        TransactionPayload first = transaction.getPayload();
+        TransactionPayload second = transaction.getPayload();
+        transaction.setJsonData("{\"currency\":\"NZD\"}");
+
+        // Assert
+        assertSame(first, second);
+        assertEquals("NZD", transaction.getPayload().getString("currency"));
+        assertNull(new Transaction().getPayload());
+    }
+
+    private byte[] encode(BsonDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+}
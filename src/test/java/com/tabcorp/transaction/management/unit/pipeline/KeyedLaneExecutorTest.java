@@ -0,0 +1,93 @@
+package com.tabcorp.transaction.management.unit.pipeline;
+
+import com.tabcorp.transaction.management.pipeline.KeyedLaneExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedLaneExecutorTest {
+
+    private KeyedLaneExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new KeyedLaneExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("Should complete tasks for the same key in submission order")
+    void submit_sameKey_preservesOrder() {
+        // Arrange
+        Map<Integer, List<Integer>> completed = new ConcurrentHashMap<>();
+        List<Mono<Integer>> tasks = new ArrayList<>();
+        for (int sequence = 0; sequence < 200; sequence++) {
+            int key = sequence % 7;
+            int value = sequence;
+            tasks.add(executor.submit(key, () -> Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(3)))
+                .map(tick -> {
+                    completed.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+                    return value;
+                })));
+        }
+
+        // Act
+        StepVerifier.create(Flux.fromIterable(tasks).flatMap(task -> task, 256).count())
+            .expectNext(200L)
+            .verifyComplete();
+
+        // Assert
+        assertEquals(7, completed.size());
+        completed.values().forEach(values -> {
+            List<Integer> sorted = new ArrayList<>(values);
+            sorted.sort(Integer::compare);
+            assertEquals(sorted, values);
+        });
+    }
+
+    @Test
+    @DisplayName("Should keep a failed task from blocking the rest of its lane")
+    void submit_failingTask_laneContinues() {
+        StepVerifier.create(executor.submit(1, () -> Mono.error(new IllegalStateException("boom"))))
+            .expectErrorMessage("boom")
+            .verify();
+
+        StepVerifier.create(executor.submit(1, () -> Mono.just("next")))
+            .expectNext("next")
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should partition items by lane keeping their relative order")
+    void partition_keepsRelativeOrder() {
+        // Act
+        List<List<Integer>> lanes = executor.partition(List.of(1, 5, 2, 9, 6, 13), key -> key);
+
+        // Assert
+        assertEquals(List.of(List.of(1, 5, 9, 13), List.of(2, 6)), lanes);
+    }
+
+    @Test
+    @DisplayName("Should route null keys to the first lane")
+    void laneOf_nullKey_usesFirstLane() {
+        assertEquals(0, executor.laneOf(null));
+        assertEquals(3, executor.laneOf(-1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tabcorp.transaction.management.unit.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.payload.PayloadAttributePromoter;
+import com.tabcorp.transaction.management.repository.PromotedAttributeBackfill;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PromotedAttributeBackfillTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private PayloadAttributePromoter promoter;
+    private PromotedAttributeBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        promoter = new PayloadAttributePromoter(
+                List.of("currency"), List.of("payment_method"), List.of("channel", "metadata.channel"));
+        backfill = new PromotedAttributeBackfill(transactionRepository, promoter);
+    }
+
+    @Test
+    @DisplayName("Should skip rows whose payload cannot be read or updated and backfill the rest")
+    void start_unreadableRows_skippedWithoutFailing() {
+        // Arrange
+        Transaction unreadable = transaction(1L, "BSON", "not a document".getBytes(StandardCharsets.UTF_8));
+        Transaction failingUpdate = transaction(2L, "JSON", "{\"currency\":\"NZD\"}".getBytes(StandardCharsets.UTF_8));
+        Transaction readable = transaction(3L, "JSON", "{\"currency\":\"AUD\",\"metadata\":{\"channel\":\"web\"}}"
+                .getBytes(StandardCharsets.UTF_8));
+        when(transactionRepository.findNotPromotedWith(promoter.fingerprint()))
+                .thenReturn(Flux.just(unreadable, failingUpdate, readable));
+        when(transactionRepository.updatePromotedAttributes(eq(2L), any(), any(), any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Connection reset")));
+        when(transactionRepository.updatePromotedAttributes(3L, "AUD", null, "web", promoter.fingerprint()))
+                .thenReturn(Mono.just(1));
+
+        // Act
+        backfill.start();
+
+        // Assert
+        assertTrue(backfill.isRunning());
+        verify(transactionRepository, never()).updatePromotedAttributes(eq(1L), any(), any(), any(), any());
+        verify(transactionRepository).updatePromotedAttributes(3L, "AUD", null, "web", promoter.fingerprint());
+    }
+
+    @Test
+    @DisplayName("Should mark rows whose payload holds none of the paths, so they are not read again")
+    void start_payloadWithoutPaths_markedAsPromoted() {
+        // Arrange
+        Transaction withoutPaths = transaction(4L, "JSON", "{\"note\":\"gift\"}".getBytes(StandardCharsets.UTF_8));
+        when(transactionRepository.findNotPromotedWith(promoter.fingerprint())).thenReturn(Flux.just(withoutPaths));
+        when(transactionRepository.updatePromotedAttributes(4L, null, null, null, promoter.fingerprint()))
+                .thenReturn(Mono.just(1));
+
+        // Act
+        backfill.start();
+
+        // Assert
+        verify(transactionRepository).updatePromotedAttributes(4L, null, null, null, promoter.fingerprint());
+    }
+
+    @Test
+    @DisplayName("Should not fail startup when the scan itself fails")
+    void start_scanFails_startsAnyway() {
+        // Arrange
+        when(transactionRepository.findNotPromotedWith(promoter.fingerprint()))
+                .thenReturn(Flux.error(new IllegalStateException("Failed to decompress payload")));
+
+        // Act
+        backfill.start();
+
+        // Assert
+        assertTrue(backfill.isRunning());
+        verify(transactionRepository, never()).updatePromotedAttributes(any(), any(), any(), any(), any());
+    }
+
+    private Transaction transaction(Long id, String payloadEncoding, byte[] payload) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setDataFormat("BSON");
+        transaction.setBsonData(payload);
+        transaction.setPayloadEncoding(payloadEncoding);
+        return transaction;
+    }
+}
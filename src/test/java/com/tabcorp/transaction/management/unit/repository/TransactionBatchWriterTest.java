@@ -0,0 +1,109 @@
+package com.tabcorp.transaction.management.unit.repository;
+
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.repository.TransactionBatchWriter;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchWriterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    @Mock
+    private ReactiveTransaction reactiveTransaction;
+
+    private TransactionBatchWriter batchWriter;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = new TransactionBatchWriter(transactionRepository, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batchWriter, "batchSize", 3);
+        ReflectionTestUtils.setField(batchWriter, "flushInterval", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(batchWriter, "shutdownTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(batchWriter, "allowedLateness", Duration.ofHours(1));
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(reactiveTransaction));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        lenient().when(transactionRepository.addToCostSummaries(anyList())).thenReturn(Mono.empty());
+        lenient().when(transactionRepository.addToCostRollups(anyList(), any())).thenReturn(Mono.just(0));
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch row by row so only the bad row fails")
+    void writeAll_badRow_failsOnlyItsCaller() {
+        // Arrange
+        Transaction first = transaction("PRODUCT_001");
+        Transaction bad = transaction("UNKNOWN");
+        Transaction last = transaction("PRODUCT_002");
+        AtomicLong ids = new AtomicLong();
+        when(transactionRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> rows = invocation.getArgument(0);
+            if (rows.contains(bad)) {
+                return Flux.error(new IllegalStateException("Referential integrity constraint violation"));
+            }
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return Flux.fromIterable(rows);
+        });
+        batchWriter.start();
+
+        // Act & Assert
+        StepVerifier.create(batchWriter.writeAll(List.of(first, bad, last)))
+                .expectNext(first)
+                .expectNext(last)
+                .expectErrorMessage("Referential integrity constraint violation")
+                .verify(Duration.ofSeconds(5));
+        verify(transactionRepository, times(4)).insertAll(anyList());
+        batchWriter.stop();
+    }
+
+    @Test
+    @DisplayName("Should flush rows still queued when stopped")
+    void stop_queuedRows_flushedBeforeDispose() {
+        // Arrange
+        when(transactionRepository.insertAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        ReflectionTestUtils.setField(batchWriter, "flushInterval", Duration.ofMinutes(1));
+        batchWriter.start();
+        Transaction transaction = transaction("PRODUCT_001");
+
+        // Act
+        Mono<Transaction> written = batchWriter.write(transaction).cache();
+        written.subscribe();
+        batchWriter.stop();
+
+        // Assert
+        StepVerifier.create(written)
+                .expectNext(transaction)
+                .verifyComplete();
+    }
+
+    private Transaction transaction(String productCode) {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(10001);
+        transaction.setProductCode(productCode);
+        transaction.setQuantity(1);
+        return transaction;
+    }
+}
@@ -0,0 +1,208 @@
+package com.tabcorp.transaction.management.unit.service;
+
+import com.tabcorp.transaction.management.cache.TransactionCountIndex;
+import com.tabcorp.transaction.management.dto.AttributeGroupDTO;
+import com.tabcorp.transaction.management.dto.CustomerTotalsRecord;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
+import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryRecord;
+import com.tabcorp.transaction.management.dto.Granularity;
+import com.tabcorp.transaction.management.dto.TopCustomerDTO;
+import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.exception.InvalidRequestException;
+import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
+import com.tabcorp.transaction.management.repository.TransactionRepository;
+import com.tabcorp.transaction.management.repository.TransactionRepositoryCustom.CostedTransaction;
+import com.tabcorp.transaction.management.repository.TransactionRepositoryCustom.IdRange;
+import com.tabcorp.transaction.management.service.impl.AnalyticsServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceImplTest {
+
+    private static final String[] CHANNELS = {"mobile", "web", "mobile", "tablet", "mobile"};
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionSummaryMapper mapper;
+
+    @Mock
+    private TransactionCountIndex countIndex;
+
+    private AnalyticsServiceImpl analyticsService;
+    private List<CostedTransaction> rows;
+
+    @BeforeEach
+    void setUp() {
+        // Three partitions of two-row pages over ids 1..10, so every partition needs several pages
+        analyticsService = new AnalyticsServiceImpl(transactionRepository, mapper, countIndex, new SimpleMeterRegistry(), 3, 2, 60, 100);
+        rows = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            transaction.setQuantity(2);
+            transaction.setPayloadEncoding("JSON");
+            transaction.setJsonData(id == 10
+                ? "{\"currency\":\"AUD\"}"
+                : "{\"channel\":\"" + CHANNELS[(int) id % CHANNELS.length] + "\",\"currency\":\"AUD\"}");
+            rows.add(new CostedTransaction(transaction, 1_050));
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge the partial aggregates of every partition, ordered by the requested metric")
+    void groupBy_partitionedScan_mergesAggregates() {
+        // Arrange
+        when(transactionRepository.findIdRange()).thenReturn(Mono.just(new IdRange(1, 10)));
+        when(transactionRepository.scanPage(anyLong(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            long lastId = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return Flux.fromIterable(rows)
+                .filter(row -> row.transaction().getId() > afterId && row.transaction().getId() <= lastId)
+                .take(limit);
+        });
+
+        // Act & Assert: channels of ids 1..9 are web, mobile, tablet, mobile, mobile, web, mobile, tablet, mobile
+        StepVerifier.create(analyticsService.groupBy("channel", "transaction_count").collectList())
+            .assertNext(groups -> {
+                assertEquals(4, groups.size());
+                assertGroup(groups.get(0), "mobile", 5, new BigDecimal("105.00"));
+                assertGroup(groups.get(1), "tablet", 2, new BigDecimal("42.00"));
+                assertGroup(groups.get(2), "web", 2, new BigDecimal("42.00"));
+                assertGroup(groups.get(3), null, 1, new BigDecimal("21.00"));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should group fractional numbers by their value and integral numbers as written")
+    void groupBy_numericAttribute_keepsDecimals() {
+        // Arrange
+        for (CostedTransaction row : rows) {
+            long id = row.transaction().getId();
+            row.transaction().setJsonData(id <= 3 ? "{\"amount\":12.5}"
+                : id <= 5 ? "{\"amount\":12.9}"
+                : id <= 9 ? "{\"amount\":12}" : "{}");
+        }
+        when(transactionRepository.findIdRange()).thenReturn(Mono.just(new IdRange(1, 10)));
+        when(transactionRepository.scanPage(anyLong(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            long lastId = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return Flux.fromIterable(rows)
+                .filter(row -> row.transaction().getId() > afterId && row.transaction().getId() <= lastId)
+                .take(limit);
+        });
+
+        // Act & Assert
+        StepVerifier.create(analyticsService.groupBy("amount", "transaction_count").collectList())
+            .assertNext(groups -> {
+                assertEquals(4, groups.size());
+                assertGroup(groups.get(0), "12", 4, new BigDecimal("84.00"));
+                assertGroup(groups.get(1), "12.5", 3, new BigDecimal("63.00"));
+                assertGroup(groups.get(2), "12.9", 2, new BigDecimal("42.00"));
+                assertGroup(groups.get(3), null, 1, new BigDecimal("21.00"));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown metric or an attribute that is not a plain field name")
+    void groupBy_invalidParameters_returnsError() {
+        StepVerifier.create(analyticsService.groupBy("channel", "average")).verifyError(InvalidRequestException.class);
+        StepVerifier.create(analyticsService.groupBy("channel'--", "total_cost")).verifyError(InvalidRequestException.class);
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("Should answer a window from the rollups of its buckets, rounded out to whole buckets")
+    void window_roundsToBuckets_readsRollups() {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2025, 3, 15, 9, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 3, 15, 9, 15);
+        CustomerTransactionSummaryRecord record = new CustomerTransactionSummaryRecord(10001L, "Tony", "Stark", 10_000L);
+        CustomerTransactionSummaryDTO dto = new CustomerTransactionSummaryDTO(10001, "Tony", "Stark", 10_000L);
+        when(transactionRepository.getTotalCostPerCustomerInWindow("MINUTE", start, end)).thenReturn(Flux.just(record));
+        when(transactionRepository.getTotalCostPerProductInWindow("MINUTE", start, end)).thenReturn(Flux.empty());
+        when(mapper.customerTransactionRecordToDto(record)).thenReturn(dto);
+
+        // Act & Assert
+        StepVerifier.create(analyticsService.window(start.plusSeconds(30), end.minusSeconds(30), "minute"))
+            .assertNext(summary -> {
+                assertEquals(start, summary.getFrom());
+                assertEquals(end, summary.getTo());
+                assertEquals(Granularity.MINUTE, summary.getGranularity());
+                assertEquals(List.of(dto), summary.getCustomers());
+                assertTrue(summary.getProducts().isEmpty());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown granularity, an empty window or one with too many buckets")
+    void window_invalidParameters_returnsError() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 15, 9, 0);
+        StepVerifier.create(analyticsService.window(start, start.plusHours(1), "second")).verifyError(InvalidRequestException.class);
+        StepVerifier.create(analyticsService.window(start, start, "minute")).verifyError(InvalidRequestException.class);
+        StepVerifier.create(analyticsService.window(start, start.plusHours(2), "minute")).verifyError(InvalidRequestException.class);
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("Should keep only the n highest spenders, ranked highest first with ties by customer id")
+    void topCustomers_boundedHeap_returnsHighestFirst() {
+        // Arrange
+        List<CustomerTotalsRecord> totals = List.of(
+            new CustomerTotalsRecord(1L, "A", "A", 500L, 5L),
+            new CustomerTotalsRecord(2L, "B", "B", 9_000L, 1L),
+            new CustomerTotalsRecord(3L, "C", "C", 700L, 9L),
+            new CustomerTotalsRecord(4L, "D", "D", 9_000L, 1L),
+            new CustomerTotalsRecord(5L, "E", "E", 100L, 2L));
+        when(transactionRepository.getCustomerTotals()).thenReturn(Flux.fromIterable(totals));
+        when(mapper.customerTotalsRecordToDto(any())).thenAnswer(invocation -> {
+            CustomerTotalsRecord record = invocation.getArgument(0);
+            return new TopCustomerDTO(record.customer_id().intValue(), record.first_name(), record.last_name(),
+                record.transaction_count(), record.total_cost_cents());
+        });
+
+        // Act & Assert
+        StepVerifier.create(analyticsService.topCustomers(3, "spend", null, null, "minute").map(TopCustomerDTO::getCustomerId))
+            .expectNext(2, 4, 3)
+            .verifyComplete();
+        StepVerifier.create(analyticsService.topCustomers(1, "count", null, null, "minute").map(TopCustomerDTO::getCustomerId))
+            .expectNext(3)
+            .verifyComplete();
+        StepVerifier.create(analyticsService.topCustomers(0, "spend", null, null, "minute"))
+            .verifyError(InvalidRequestException.class);
+    }
+
+    private void assertGroup(AttributeGroupDTO group, String value, long count, BigDecimal totalCost) {
+        assertEquals(value, group.getValue());
+        assertEquals(count, group.getTransactionCount());
+        assertEquals(count * 2, group.getTotalQuantity());
+        assertEquals(totalCost, group.getTotalCost());
+    }
+}
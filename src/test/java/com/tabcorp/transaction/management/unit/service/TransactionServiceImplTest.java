@@ -1,14 +1,21 @@
 package com.tabcorp.transaction.management.unit.service;
 
+import com.tabcorp.transaction.management.cache.ProductReference;
+import com.tabcorp.transaction.management.cache.ReferenceDataCache;
+import com.tabcorp.transaction.management.cache.ReferenceDataSnapshot;
+import com.tabcorp.transaction.management.cache.TransactionCountIndex;
+import com.tabcorp.transaction.management.cache.TransactionSummaryCache;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryDTO;
 import com.tabcorp.transaction.management.dto.CustomerTransactionSummaryRecord;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryDTO;
 import com.tabcorp.transaction.management.dto.ProductTransactionSummaryRecord;
 import com.tabcorp.transaction.management.entity.Product;
 import com.tabcorp.transaction.management.entity.Transaction;
+import com.tabcorp.transaction.management.exception.InvalidRequestException;
 import com.tabcorp.transaction.management.mapper.TransactionSummaryMapper;
-import com.tabcorp.transaction.management.repository.CustomerRepository;
-import com.tabcorp.transaction.management.repository.ProductRepository;
+import com.tabcorp.transaction.management.payload.PayloadAttributePromoter;
+import com.tabcorp.transaction.management.pipeline.KeyedLaneExecutor;
+import com.tabcorp.transaction.management.repository.TransactionBatchWriter;
 import com.tabcorp.transaction.management.repository.TransactionRepository;
 import com.tabcorp.transaction.management.service.impl.TransactionServiceImpl;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -20,19 +27,30 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -43,10 +61,22 @@ public class TransactionServiceImplTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private CustomerRepository customerRepository;
+    private ReferenceDataCache referenceDataCache;
 
     @Mock
-    private ProductRepository productRepository;
+    private ReferenceDataSnapshot referenceDataSnapshot;
+
+    @Mock
+    private TransactionBatchWriter batchWriter;
+
+    @Mock
+    private PayloadAttributePromoter attributePromoter;
+
+    @Mock
+    private TransactionSummaryCache summaryCache;
+
+    @Mock
+    private TransactionCountIndex countIndex;
 
     @Mock
     private TransactionSummaryMapper transactionSummaryMapper;
@@ -54,14 +84,16 @@ public class TransactionServiceImplTest {
     @Spy
     private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
+    @Spy
+    private KeyedLaneExecutor laneExecutor = new KeyedLaneExecutor(2);
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(transactionService, "processingTimeoutSeconds", 5);
-        ReflectionTestUtils.setField(transactionService, "batchSize", 100);
-        ReflectionTestUtils.setField(transactionService, "parallelThreads", 3);
+        ReflectionTestUtils.setField(transactionService, "streamPageSize", 500);
         transactionService.init();
     }
 
@@ -71,16 +103,35 @@ public class TransactionServiceImplTest {
         Transaction transaction = createValidTransaction();
         Product product = createValidProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(product));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(true));
+        when(referenceDataCache.getProduct(anyString())).thenReturn(Mono.just(product));
 
         // Act & Assert
         StepVerifier.create(transactionService.validateTransaction(transaction))
             .expectNext(transaction)
             .verifyComplete();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository).findById(transaction.getProductCode());
+        assertEquals(1000L, transaction.getUnitCostCents());
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache).getProduct(transaction.getProductCode());
+    }
+
+    @Test
+    void validateTransaction_snapshotHit_skipsReferenceCache() {
+        // Arrange
+        Transaction transaction = createValidTransaction();
+        transaction.setQuantity(600);
+
+        when(referenceDataSnapshot.containsCustomer(1)).thenReturn(true);
+        when(referenceDataSnapshot.getProduct("PRODUCT_001")).thenReturn(ProductReference.of(createValidProduct()));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.validateTransaction(transaction))
+            .expectErrorMatches(throwable ->
+                throwable.getMessage().equals("Total cost cannot exceed 5000. Current total: 6000.00"))
+            .verify();
+
+        verifyNoInteractions(referenceDataCache);
     }
 
     @Test
@@ -88,7 +139,7 @@ public class TransactionServiceImplTest {
         // Arrange
         Transaction transaction = createValidTransaction();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(false));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(false));
 
         // Act & Assert
         StepVerifier.create(transactionService.validateTransaction(transaction))
@@ -96,8 +147,8 @@ public class TransactionServiceImplTest {
                 throwable.getMessage().contains("Invalid customer: 1"))
             .verify();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository, never()).findById(anyString());
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache, never()).getProduct(anyString());
     }
 
     @Test
@@ -105,8 +156,8 @@ public class TransactionServiceImplTest {
         // Arrange
         Transaction transaction = createValidTransaction();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(true));
+        when(referenceDataCache.getProduct(anyString())).thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(transactionService.validateTransaction(transaction))
@@ -114,8 +165,8 @@ public class TransactionServiceImplTest {
                 throwable.getMessage().contains("Product not found: PRODUCT_001"))
             .verify();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository).findById(transaction.getProductCode());
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache).getProduct(transaction.getProductCode());
     }
 
     @Test
@@ -124,8 +175,8 @@ public class TransactionServiceImplTest {
         Transaction transaction = createValidTransaction();
         Product inactiveProduct = createInactiveProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(inactiveProduct));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(true));
+        when(referenceDataCache.getProduct(anyString())).thenReturn(Mono.just(inactiveProduct));
 
         // Act & Assert
         StepVerifier.create(transactionService.validateTransaction(transaction))
@@ -133,8 +184,8 @@ public class TransactionServiceImplTest {
                 throwable.getMessage().contains("Product is not active: PRODUCT_001"))
             .verify();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository).findById(transaction.getProductCode());
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache).getProduct(transaction.getProductCode());
     }
 
     @Test
@@ -143,8 +194,8 @@ public class TransactionServiceImplTest {
         Transaction transaction = createTransactionWithInvalidQuantity();
         Product product = createValidProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(product));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(true));
+        when(referenceDataCache.getProduct(anyString())).thenReturn(Mono.just(product));
 
         // Act & Assert
         StepVerifier.create(transactionService.validateTransaction(transaction))
@@ -152,8 +203,8 @@ public class TransactionServiceImplTest {
                 throwable.getMessage().contains("Quantity must be greater than 0"))
             .verify();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository).findById(transaction.getProductCode());
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache).getProduct(transaction.getProductCode());
     }
 
     @Test
@@ -162,18 +213,18 @@ public class TransactionServiceImplTest {
         Transaction transaction = createValidTransaction();
         Product product = createValidProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(product));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(Mono.just(transaction));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(true));
+        when(referenceDataCache.getProduct(anyString())).thenReturn(Mono.just(product));
+        when(batchWriter.write(any(Transaction.class))).thenReturn(Mono.just(transaction));
 
         // Act & Assert
         StepVerifier.create(transactionService.processTransaction(transaction))
             .expectNext(transaction)
             .verifyComplete();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(productRepository).findById(transaction.getProductCode());
-        verify(transactionRepository).save(transaction);
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(referenceDataCache).getProduct(transaction.getProductCode());
+        verify(batchWriter).write(transaction);
     }
 
     @Test
@@ -181,7 +232,7 @@ public class TransactionServiceImplTest {
         // Arrange
         Transaction transaction = createValidTransaction();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(false));
+        when(referenceDataCache.customerExists(anyInt())).thenReturn(Mono.just(false));
 
         // Act & Assert
         StepVerifier.create(transactionService.processTransaction(transaction))
@@ -189,8 +240,8 @@ public class TransactionServiceImplTest {
                 throwable.getMessage().contains("Invalid customer: 1"))
             .verify();
 
-        verify(customerRepository).existsById(transaction.getCustomerId());
-        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(referenceDataCache).customerExists(transaction.getCustomerId());
+        verify(batchWriter, never()).write(any(Transaction.class));
     }
 
     @Test
@@ -203,9 +254,9 @@ public class TransactionServiceImplTest {
         );
         Product product = createValidProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(product));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(Mono.just(transactions.get(0)));
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", product)));
+        when(batchWriter.writeAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
 
         // Act & Assert
         StepVerifier.create(transactionService.processTransactionBatch(transactions, "JSON"))
@@ -220,9 +271,10 @@ public class TransactionServiceImplTest {
             )
             .verifyComplete();
 
-        verify(customerRepository, times(3)).existsById(anyInt());
-        verify(productRepository, times(3)).findById(anyString());
-        verify(transactionRepository, times(3)).save(any(Transaction.class));
+        verify(referenceDataCache, times(1)).existingCustomers(anyCollection());
+        verify(referenceDataCache, times(1)).getProducts(anyCollection());
+        verify(referenceDataCache, never()).customerExists(anyInt());
+        verify(batchWriter, times(1)).writeAll(transactions);
     }
 
     @Test
@@ -234,9 +286,9 @@ public class TransactionServiceImplTest {
 
         Product product = createValidProduct();
 
-        when(customerRepository.existsById(anyInt())).thenReturn(Mono.just(true));
-        when(productRepository.findById(anyString())).thenReturn(Mono.just(product));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(Mono.just(validTransaction));
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", product)));
+        when(batchWriter.writeAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
 
         // Act & Assert
         StepVerifier.create(transactionService.processTransactionBatch(transactions, "JSON"))
@@ -245,7 +297,137 @@ public class TransactionServiceImplTest {
                     processedTransactions.contains(validTransaction))
             .verifyComplete();
 
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(batchWriter, times(1)).writeAll(List.of(validTransaction));
+    }
+
+    @Test
+    void processTransactionBatch_nullTransaction_skipsItBeforeSharding() {
+        // Arrange
+        Transaction validTransaction = createValidTransaction();
+        List<Transaction> transactions = Arrays.asList(null, validTransaction);
+
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct())));
+        when(batchWriter.writeAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.processTransactionBatch(transactions, "JSON"))
+            .expectNext(List.of(validTransaction))
+            .verifyComplete();
+
+        assertEquals(1.0, meterRegistry.counter("transaction.validation.error").count());
+    }
+
+    @Test
+    void processTransactionBatch_unreadablePayload_storesLaneWithoutPromotedAttributes() {
+        // Arrange
+        Transaction unreadable = createValidTransaction();
+        Transaction readable = createValidTransaction();
+        List<Transaction> transactions = List.of(unreadable, readable);
+
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct())));
+        when(attributePromoter.promote(unreadable)).thenAnswer(invocation -> {
+            unreadable.setCurrency("AUD");
+            throw new UncheckedIOException(new IOException("Unexpected character '}'"));
+        });
+        when(batchWriter.writeAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.processTransactionBatch(transactions, "JSON"))
+            .expectNext(transactions)
+            .verifyComplete();
+
+        assertNull(unreadable.getCurrency());
+        assertEquals(1.0, meterRegistry.counter("transaction.attribute-promotion.failed").count());
+        verify(batchWriter, times(1)).writeAll(transactions);
+    }
+
+    @Test
+    void processTransactionBatch_databaseUnavailable_failsTheBatch() {
+        // Arrange
+        Transaction validTransaction = createValidTransaction();
+
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct())));
+        when(batchWriter.writeAll(anyList())).thenReturn(Flux.error(new IllegalStateException("Connection refused")));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.processTransactionBatch(List.of(validTransaction), "JSON"))
+            .expectErrorMessage("Connection refused")
+            .verify();
+    }
+
+    @Test
+    void processTransactionBatch_rowRejectedByDatabase_dropsOnlyThatRow() {
+        // Arrange
+        Transaction stored = createValidTransaction();
+        Transaction rejected = createValidTransaction();
+
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct())));
+        when(batchWriter.writeAll(anyList())).thenReturn(Flux.just(stored)
+            .concatWith(Flux.error(new DataIntegrityViolationException("Referential integrity constraint violation"))));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.processTransactionBatch(List.of(stored, rejected), "JSON"))
+            .expectNext(List.of(stored))
+            .verifyComplete();
+    }
+
+    @Test
+    void processTransactionBatch_lookupFailsOnce_retriesOnlyTheLane() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "persistRetries", 1);
+        Transaction validTransaction = createValidTransaction();
+
+        when(referenceDataCache.existingCustomers(anyCollection()))
+            .thenReturn(Mono.error(new IllegalStateException("Connection reset")))
+            .thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct())));
+        when(batchWriter.writeAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Transaction>>getArgument(0)));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.processTransactionBatch(List.of(validTransaction), "JSON"))
+            .expectNext(List.of(validTransaction))
+            .verifyComplete();
+
+        verify(referenceDataCache, times(2)).existingCustomers(anyCollection());
+        verify(batchWriter, times(1)).writeAll(List.of(validTransaction));
+    }
+
+    @Test
+    void validateTransactions_mixedBatch_returnsResultPerTransactionInOrder() {
+        // Arrange
+        Transaction validTransaction = createValidTransaction();
+        Transaction unknownCustomer = createValidTransaction();
+        unknownCustomer.setCustomerId(2);
+        Transaction unknownProduct = createValidTransaction();
+        unknownProduct.setProductCode("PRODUCT_404");
+        Transaction inactiveProduct = createValidTransaction();
+        inactiveProduct.setProductCode("PRODUCT_002");
+        Product inactive = createInactiveProduct();
+        inactive.setProductCode("PRODUCT_002");
+        List<Transaction> transactions = List.of(validTransaction, unknownCustomer, unknownProduct, inactiveProduct);
+
+        when(referenceDataCache.existingCustomers(anyCollection())).thenReturn(Mono.just(Set.of(1)));
+        when(referenceDataCache.getProducts(anyCollection())).thenReturn(Mono.just(Map.of("PRODUCT_001", createValidProduct(), "PRODUCT_002", inactive)));
+
+        // Act & Assert
+        StepVerifier.create(transactionService.validateTransactions(transactions))
+            .assertNext(results -> {
+                assertEquals(4, results.size());
+                assertTrue(results.get(0).isValid());
+                assertEquals(1000L, results.get(0).transaction().getUnitCostCents());
+                assertEquals("Invalid customer: 2", results.get(1).error());
+                assertEquals("Product not found: PRODUCT_404", results.get(2).error());
+                assertEquals("Product is not active: PRODUCT_002", results.get(3).error());
+                assertSame(inactiveProduct, results.get(3).transaction());
+            })
+            .verifyComplete();
+
+        verify(referenceDataCache).existingCustomers(Set.of(1, 2));
+        verify(referenceDataCache).getProducts(Set.of("PRODUCT_001", "PRODUCT_404", "PRODUCT_002"));
     }
 
     @Test
@@ -259,6 +441,50 @@ public class TransactionServiceImplTest {
             .verifyComplete(); // Changed to expect completion instead of error
     }
 
+    @Test
+    void streamTotalCostPerCustomer_keysetCursor_mapsRowsInOrder() {
+        // Arrange
+        CustomerTransactionSummaryRecord first = new CustomerTransactionSummaryRecord(11L, "Bruce", "Banner", 1_000L);
+        CustomerTransactionSummaryRecord second = new CustomerTransactionSummaryRecord(12L, "Natasha", "Romanoff", 2_000L);
+        CustomerTransactionSummaryDTO firstDto = new CustomerTransactionSummaryDTO(11, "Bruce", "Banner", 1_000L);
+        CustomerTransactionSummaryDTO secondDto = new CustomerTransactionSummaryDTO(12, "Natasha", "Romanoff", 2_000L);
+        when(transactionRepository.streamTotalCostPerCustomer(10, 2)).thenReturn(Flux.just(first, second));
+        when(transactionSummaryMapper.customerTransactionRecordToDto(first)).thenReturn(firstDto);
+        when(transactionSummaryMapper.customerTransactionRecordToDto(second)).thenReturn(secondDto);
+
+        // Act & Assert
+        StepVerifier.create(transactionService.streamTotalCostPerCustomer(10, 2))
+            .expectNext(firstDto, secondDto)
+            .verifyComplete();
+        StepVerifier.create(transactionService.streamTotalCostPerCustomer(null, 0))
+            .expectError(InvalidRequestException.class)
+            .verify();
+        verify(transactionRepository, never()).streamTotalCostPerCustomer(Integer.MIN_VALUE, 0);
+    }
+
+    @Test
+    void streamTotalCostPerCustomer_noLimit_readsBoundedPagesAfterLastKey() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "streamPageSize", 2);
+        CustomerTransactionSummaryRecord first = new CustomerTransactionSummaryRecord(11L, "Bruce", "Banner", 1_000L);
+        CustomerTransactionSummaryRecord second = new CustomerTransactionSummaryRecord(12L, "Natasha", "Romanoff", 2_000L);
+        CustomerTransactionSummaryRecord third = new CustomerTransactionSummaryRecord(15L, "Clint", "Barton", 3_000L);
+        CustomerTransactionSummaryDTO firstDto = new CustomerTransactionSummaryDTO(11, "Bruce", "Banner", 1_000L);
+        CustomerTransactionSummaryDTO secondDto = new CustomerTransactionSummaryDTO(12, "Natasha", "Romanoff", 2_000L);
+        CustomerTransactionSummaryDTO thirdDto = new CustomerTransactionSummaryDTO(15, "Clint", "Barton", 3_000L);
+        when(transactionRepository.streamTotalCostPerCustomer(Integer.MIN_VALUE, 2)).thenReturn(Flux.just(first, second));
+        when(transactionRepository.streamTotalCostPerCustomer(12, 2)).thenReturn(Flux.just(third));
+        when(transactionSummaryMapper.customerTransactionRecordToDto(first)).thenReturn(firstDto);
+        when(transactionSummaryMapper.customerTransactionRecordToDto(second)).thenReturn(secondDto);
+        when(transactionSummaryMapper.customerTransactionRecordToDto(third)).thenReturn(thirdDto);
+
+        // Act & Assert
+        StepVerifier.create(transactionService.streamTotalCostPerCustomer(null, null))
+            .expectNext(firstDto, secondDto, thirdDto)
+            .verifyComplete();
+        verify(transactionRepository, times(2)).streamTotalCostPerCustomer(anyInt(), anyInt());
+    }
+
     // Helper methods
     private Transaction createValidTransaction () {
         Transaction transaction = new Transaction();